@@ -0,0 +1,72 @@
+package com.example.gateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+// Журнал доступа шлюза: одна JSON-строка на запрос (маршрут, статус, время, попадание в кэш) в логгер guesthouse.access.<id маршрута>.
+// Строки пишет асинхронный appender из logback-spring.xml и при переполнении очереди отбрасывает.
+// DEBUG для логгера маршрута (например logging.level.guesthouse.access.server-app-api=DEBUG) добавляет подробности запроса
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    public static final String LOGGER = "guesthouse.access";
+
+    // Снаружи всех фильтров: время включает кэш, объединение и отказы по лимиту
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long startedAt = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> log(exchange, startedAt));
+    }
+
+    private static void log(ServerWebExchange exchange, long startedAt) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        Logger logger = LoggerFactory.getLogger(LOGGER + "." + routeId);
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        String path = request.getPath().value();
+        logger.atInfo()
+                .addKeyValue("method", request.getMethod().name())
+                .addKeyValue("route", routeId)
+                .addKeyValue("path", path)
+                .addKeyValue("status", status != null ? status.value() : null)
+                .addKeyValue("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+                .addKeyValue("cache", exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE))
+                .log("{} {} {}", request.getMethod().name(), path, status != null ? status.value() : "-");
+        if (logger.isDebugEnabled()) {
+            // Cookie и Authorization не пишутся
+            InetSocketAddress remote = request.getRemoteAddress();
+            logger.atDebug()
+                    .addKeyValue("query", request.getURI().getRawQuery())
+                    .addKeyValue("requestContentType", request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE))
+                    .addKeyValue("responseContentType", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_TYPE))
+                    .addKeyValue("userAgent", request.getHeaders().getFirst(HttpHeaders.USER_AGENT))
+                    .addKeyValue("remoteAddr", remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null)
+                    .addKeyValue("upstream", Objects.toString(exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR), null))
+                    .log("{} {} details", request.getMethod().name(), path);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.gateway;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+// Клиент запроса для лимитов: токен или сессия server-app, без них - IP-адрес
+@Component
+public class ClientKeyResolver implements KeyResolver {
+
+    private static final String SESSION_COOKIE = "JSESSIONID";
+
+    // Токен или сессия server-app; null для анонимного запроса
+    public static String principal(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            return authorization;
+        }
+        HttpCookie session = request.getCookies().getFirst(SESSION_COOKIE);
+        return session != null ? session.getValue() : null;
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        String principal = principal(exchange.getRequest());
+        if (principal != null) {
+            return Mono.just(principal);
+        }
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        return Mono.just(address != null && address.getAddress() != null ? address.getAddress().getHostAddress() : "unknown");
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Token bucket в памяти шлюза для фильтра RequestRateLimiter, без Redis.
+// На каждый маршрут два ведра: общее (защищает server-app от всплеска) и на клиента (один клиент не выбирает общий лимит).
+// Параметры задаются аргументами фильтра маршрута local-rate-limiter.*; отказ - 429, счётчик gateway.ratelimit.rejected
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+    public static final String METRIC = "gateway.ratelimit";
+
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    private static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    private final Config defaultConfig = new Config();
+    private final MeterRegistry meterRegistry;
+    // Ведра неактивных клиентов вытесняются, чтобы память не росла с числом сессий
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public LocalRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        TokenBucket clientBucket = buckets.get(routeId + "|client|" + id,
+                key -> new TokenBucket(config.getBurstCapacity(), config.getReplenishRate()));
+        TokenBucket routeBucket = buckets.get(routeId + "|route",
+                key -> new TokenBucket(config.getRouteBurstCapacity(), config.getRouteReplenishRate()));
+
+        String rejectedBy = null;
+        if (!clientBucket.tryConsume()) {
+            rejectedBy = "client";
+        } else if (!routeBucket.tryConsume()) {
+            // Запрос не прошёл, токен клиента возвращается
+            clientBucket.refund();
+            rejectedBy = "route";
+        }
+
+        Map<String, String> headers = Map.of(
+                REMAINING_HEADER, Long.toString(clientBucket.available()),
+                REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        if (rejectedBy == null) {
+            return Mono.just(new Response(true, headers));
+        }
+        meterRegistry.counter(METRIC + ".rejected", "route", routeId, "limit", rejectedBy).increment();
+        return Mono.just(new Response(false, Map.of(
+                REMAINING_HEADER, headers.get(REMAINING_HEADER),
+                REPLENISH_RATE_HEADER, headers.get(REPLENISH_RATE_HEADER),
+                BURST_CAPACITY_HEADER, headers.get(BURST_CAPACITY_HEADER),
+                HttpHeaders.RETRY_AFTER, "1")));
+    }
+
+    public static class Config {
+
+        // Лимит одного клиента: запросов в секунду и допустимый всплеск
+        private int replenishRate = 20;
+        private int burstCapacity = 40;
+        // Лимит маршрута для всех клиентов вместе
+        private int routeReplenishRate = 100;
+        private int routeBurstCapacity = 200;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRouteReplenishRate() {
+            return routeReplenishRate;
+        }
+
+        public void setRouteReplenishRate(int routeReplenishRate) {
+            this.routeReplenishRate = routeReplenishRate;
+        }
+
+        public int getRouteBurstCapacity() {
+            return routeBurstCapacity;
+        }
+
+        public void setRouteBurstCapacity(int routeBurstCapacity) {
+            this.routeBurstCapacity = routeBurstCapacity;
+        }
+    }
+
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(int capacity, int tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / 1_000_000_000.0;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume() {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized long available() {
+            refill();
+            return (long) tokens;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+// Данные страницы одним запросом: маршрут /bff/<страница> с фильтром PageAggregation параллельно запрашивает у server-app
+// (uri маршрута) адреса из args.legs.<часть> и отдаёт один JSON {"<часть>": ответ, ..., "errors": {"<часть>": причина}}.
+// Упавшая или не уложившаяся в args.timeout часть не роняет страницу, а попадает в errors; если не удалась ни одна - 502.
+// Части уходят с Cookie и Authorization исходного запроса, для server-app это обычные запросы пользователя.
+// Фильтр сам пишет ответ и должен стоять последним; RequestRateLimiter перед ним считает весь запрос страницы одним.
+// Время каждой части - таймер gateway.bff.leg с тегами route, leg и outcome (success, error, timeout).
+// Каждая часть собирается в памяти целиком, не больше args.max-body-size (по умолчанию 256 КБ); для списков
+// нужны ограниченные по размеру адреса (страницы), а не потоковые выгрузки всей таблицы
+@Component
+public class PageAggregationGatewayFilterFactory extends AbstractGatewayFilterFactory<PageAggregationGatewayFilterFactory.Config> {
+
+    public static final String METRIC = "gateway.bff.leg";
+
+    private static final String ERRORS = "errors";
+    private static final List<String> FORWARDED_HEADERS = List.of(HttpHeaders.COOKIE, HttpHeaders.AUTHORIZATION,
+            HttpHeaders.ACCEPT_LANGUAGE);
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    record LegResult(String leg, JsonNode body, String error, String outcome) {
+    }
+
+    public PageAggregationGatewayFilterFactory(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.webClient = webClientBuilder.build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            return Flux.fromIterable(config.getLegs().entrySet())
+                    .flatMap(leg -> fetch(route, leg.getKey(), leg.getValue(), exchange.getRequest(),
+                            config.getTimeout(), config.getMaxBodySize()))
+                    .collectList()
+                    .flatMap(results -> write(exchange, results));
+        };
+    }
+
+    private Mono<LegResult> fetch(Route route, String leg, String path, ServerHttpRequest request, Duration timeout,
+                                  DataSize maxBodySize) {
+        URI uri = route.getUri().resolve(path);
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return webClient.get()
+                    .uri(uri)
+                    .headers(headers -> FORWARDED_HEADERS.forEach(name -> {
+                        List<String> values = request.getHeaders().get(name);
+                        if (values != null) {
+                            headers.put(name, values);
+                        }
+                    }))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    // Перенаправление на страницу входа - тоже отказ, а не данные
+                    .onStatus(status -> !status.is2xxSuccessful(), ClientResponse::createException)
+                    .bodyToFlux(DataBuffer.class)
+                    .as(body -> DataBufferUtils.join(body, (int) maxBodySize.toBytes()))
+                    .map(this::readJson)
+                    .defaultIfEmpty(NullNode.getInstance())
+                    .timeout(timeout)
+                    .map(body -> new LegResult(leg, body, null, "success"))
+                    .onErrorResume(error -> Mono.just(failed(leg, error, timeout, maxBodySize)))
+                    .doOnNext(result -> sample.stop(Timer.builder(METRIC)
+                            .description("Time of one part of an aggregated page request")
+                            .tag("route", route.getId())
+                            .tag("leg", leg)
+                            .tag("outcome", result.outcome())
+                            .register(meterRegistry)));
+        });
+    }
+
+    private JsonNode readJson(DataBuffer buffer) {
+        try (InputStream body = buffer.asInputStream(true)) {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static LegResult failed(String leg, Throwable error, Duration timeout, DataSize maxBodySize) {
+        if (error instanceof TimeoutException) {
+            return new LegResult(leg, null, "Нет ответа за " + timeout.toMillis() + " мс", "timeout");
+        }
+        if (error instanceof DataBufferLimitException) {
+            return new LegResult(leg, null, "Ответ больше " + maxBodySize.toKilobytes() + " КБ", "error");
+        }
+        if (error instanceof WebClientResponseException responseError) {
+            return new LegResult(leg, null, responseError.getStatusCode().toString(), "error");
+        }
+        return new LegResult(leg, null, error.getClass().getSimpleName(), "error");
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, List<LegResult> results) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode errors = objectMapper.createObjectNode();
+        for (LegResult result : results) {
+            if (result.error() == null) {
+                body.set(result.leg(), result.body());
+            } else {
+                errors.put(result.leg(), result.error());
+            }
+        }
+        if (!errors.isEmpty()) {
+            body.set(ERRORS, errors);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(!results.isEmpty() && errors.size() == results.size() ? HttpStatus.BAD_GATEWAY : HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setCacheControl("no-store");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+
+    public static class Config {
+
+        // Часть ответа -> путь в server-app (можно с параметрами запроса)
+        private Map<String, String> legs = new LinkedHashMap<>();
+        private Duration timeout = Duration.ofSeconds(5);
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+        public Map<String, String> getLegs() {
+            return legs;
+        }
+
+        public void setLegs(Map<String, String> legs) {
+            this.legs = legs;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.gateway;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Одинаковые одновременные GET одного клиента (двойной клик, несколько вкладок) уходят в server-app одним запросом.
+// Первый запрос идёт дальше и отдаёт ответ клиенту потоком, копируя его; остальные ждут и получают копию.
+// Если ответ не удалось скопировать (ошибка, слишком большой, потоковый тип), ожидающие выполняют свой запрос сами.
+// Ожидающие не проходят лимит RequestRateLimiter: в server-app уходит только первый запрос
+@Component
+@ConditionalOnProperty(prefix = "guesthouse.coalescing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    public static final String METRIC = "gateway.coalesced";
+
+    // Заголовки соединения и сессии не переносятся в ответы ожидающим
+    private static final Set<String> SKIPPED_HEADERS = Set.of(HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase());
+
+    private final Map<Key, Mono<Optional<SharedResponse>>> inFlight = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> paths;
+    private final long maxBodyBytes;
+    private final Counter coalesced;
+
+    record Key(String path, String query, String principal, String accept, String acceptEncoding) {
+    }
+
+    record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    public RequestCoalescingFilter(@Value("${guesthouse.coalescing.paths:/api/**}") List<String> paths,
+                                   @Value("${guesthouse.coalescing.max-body-size:8MB}") DataSize maxBodySize,
+                                   MeterRegistry meterRegistry) {
+        this.paths = paths;
+        this.maxBodyBytes = maxBodySize.toBytes();
+        this.coalesced = meterRegistry.counter(METRIC);
+    }
+
+    // После кэша ответов: попадание в кэш до объединения не доходит
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String principal = ClientKeyResolver.principal(request);
+        String path = request.getPath().value();
+        // Поток событий не завершается, ожидающие ждали бы его конца
+        if (request.getMethod() != HttpMethod.GET || principal == null || isEventStream(request)
+                || paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return chain.filter(exchange);
+        }
+
+        HttpHeaders headers = request.getHeaders();
+        Key key = new Key(path, request.getURI().getRawQuery(), principal,
+                headers.getFirst(HttpHeaders.ACCEPT), headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        Sinks.One<Optional<SharedResponse>> sink = Sinks.one();
+        Mono<Optional<SharedResponse>> leader = inFlight.putIfAbsent(key, sink.asMono());
+        if (leader != null) {
+            return leader.flatMap(shared -> shared.isPresent() ? writeShared(exchange, shared.get()) : chain.filter(exchange));
+        }
+
+        Mono<Optional<SharedResponse>> own = sink.asMono();
+        Runnable release = () -> inFlight.remove(key, own);
+        return chain.filter(exchange.mutate().response(new SharingResponse(exchange.getResponse(), sink, release)).build())
+                .doFinally(signal -> {
+                    release.run();
+                    // Ответ не скопирован: ожидающие пойдут в server-app сами
+                    sink.tryEmitValue(Optional.empty());
+                });
+    }
+
+    private static boolean isEventStream(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM) && !mediaType.isWildcardType());
+    }
+
+    private Mono<Void> writeShared(ServerWebExchange exchange, SharedResponse shared) {
+        coalesced.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    // Пишет ответ клиенту как обычно и параллельно копирует его для ожидающих
+    private class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final Sinks.One<Optional<SharedResponse>> sink;
+        private final Runnable release;
+
+        SharingResponse(ServerHttpResponse delegate, Sinks.One<Optional<SharedResponse>> sink, Runnable release) {
+            super(delegate);
+            this.sink = sink;
+            this.release = release;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // Ответ уже пошёл клиенту: новые запросы к нему не присоединяются, а идут в server-app через лимит,
+            // иначе следующий запрос клиента мог бы получить копию уже отданного ответа
+            release.run();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            boolean[] overflow = new boolean[1];
+            Flux<? extends DataBuffer> teed = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        int length = buffer.readableByteCount();
+                        if (overflow[0] || copy.size() + length > maxBodyBytes) {
+                            overflow[0] = true;
+                            return;
+                        }
+                        byte[] bytes = new byte[length];
+                        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, length);
+                        copy.writeBytes(bytes);
+                    })
+                    .doOnComplete(() -> {
+                        if (!overflow[0]) {
+                            HttpHeaders headers = new HttpHeaders();
+                            getHeaders().forEach((name, values) -> {
+                                if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                                    headers.put(name, List.copyOf(values));
+                                }
+                            });
+                            sink.tryEmitValue(Optional.of(new SharedResponse(getStatusCode(), headers, copy.toByteArray())));
+                        }
+                    });
+            return super.writeWith(teed);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+// Локальный кэш GET-ответов server-app: статика и справочники из guesthouse.response-cache.paths.
+// Ключ включает сессию или токен, поэтому пользователь получает только свои ответы; запросы без них не кэшируются.
+// Ответ снабжается ETag, и повторный запрос с If-None-Match получает 304 прямо из шлюза.
+// POST/PUT/PATCH/DELETE на /api/<ресурс>/** сбрасывают записи этого ресурса у всех пользователей, выход - записи сессии
+@Component
+@ConditionalOnProperty(prefix = "guesthouse.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    static final String X_CACHE = "X-Cache";
+
+    private static final String LOGOUT_PATH = "/logout";
+    private static final Set<HttpMethod> MUTATING = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    // Заголовки соединения и сессии не переносятся из сохранённого ответа
+    private static final Set<String> SKIPPED_HEADERS = Set.of(HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(), HttpHeaders.ETAG.toLowerCase(), X_CACHE.toLowerCase());
+
+    private final Cache<Key, CachedResponse> cache;
+    private final List<String> paths;
+    private final Set<String> staticExtensions;
+    private final long maxEntryBytes;
+
+    record Key(String path, String query, String principal, boolean gzip) {
+    }
+
+    record CachedResponse(HttpStatus status, HttpHeaders headers, byte[] body, String etag) {
+    }
+
+    public ResponseCacheFilter(@Value("${guesthouse.response-cache.paths:/api/houses/show,/api/services/show}") List<String> paths,
+                               @Value("${guesthouse.response-cache.static-extensions:js,css,png,jpg,svg,ico,woff2}") Set<String> staticExtensions,
+                               @Value("${guesthouse.response-cache.max-size:64MB}") DataSize maxSize,
+                               @Value("${guesthouse.response-cache.max-entry-size:1MB}") DataSize maxEntrySize,
+                               @Value("${guesthouse.response-cache.ttl:60s}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.paths = paths;
+        this.staticExtensions = staticExtensions;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, CachedResponse response) -> response.body().length + 512)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayResponses");
+    }
+
+    // Перед NettyWriteResponseFilter, чтобы перехватить тело ответа до записи клиенту, и перед объединением запросов
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (MUTATING.contains(request.getMethod())) {
+            // Сброс до и после изменения: параллельный GET не должен вернуть в кэш старые данные
+            invalidate(request);
+            return chain.filter(exchange).doFinally(signal -> invalidate(request));
+        }
+        String principal = ClientKeyResolver.principal(request);
+        if (request.getMethod() != HttpMethod.GET || principal == null || !isCacheable(request.getPath().value())) {
+            return chain.filter(exchange);
+        }
+
+        Key key = new Key(request.getPath().value(), request.getURI().getRawQuery(), principal,
+                request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING).stream().anyMatch(value -> value.contains("gzip")));
+        CachedResponse cached = bypassesCache(request) ? null : cache.getIfPresent(key);
+        if (cached != null) {
+            return writeCached(exchange, cached);
+        }
+
+        // Условные заголовки проверяются здесь, от server-app нужен полный ответ для сохранения
+        ServerHttpRequest upstream = request.mutate()
+                .headers(headers -> {
+                    headers.remove(HttpHeaders.IF_NONE_MATCH);
+                    headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                })
+                .build();
+        ServerHttpResponse response = new CachingResponse(exchange.getResponse(), request, key);
+        return chain.filter(exchange.mutate().request(upstream).response(response).build());
+    }
+
+    private boolean isCacheable(String path) {
+        if (paths.contains(path)) {
+            return true;
+        }
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') && staticExtensions.contains(path.substring(dot + 1));
+    }
+
+    private static boolean bypassesCache(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    private void invalidate(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        if (path.equals(LOGOUT_PATH)) {
+            String principal = ClientKeyResolver.principal(request);
+            if (principal != null) {
+                cache.asMap().keySet().removeIf(key -> key.principal().equals(principal));
+            }
+            return;
+        }
+        // /api/houses/5 -> /api/houses
+        String[] segments = path.split("/");
+        if (segments.length >= 3 && segments[1].equals("api")) {
+            String resource = "/api/" + segments[2] + "/";
+            cache.asMap().keySet().removeIf(key -> key.path().startsWith(resource));
+        }
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().set(X_CACHE, "HIT");
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            return writeNotModified(response);
+        }
+        response.setStatusCode(cached.status());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Mono<Void> writeNotModified(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        response.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        return response.setComplete();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Собирает тело успешного ответа, сохраняет его и отдаёт клиенту с ETag
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest request;
+        private final Key key;
+
+        CachingResponse(ServerHttpResponse delegate, ServerHttpRequest request, Key key) {
+            super(delegate);
+            this.request = request;
+            this.key = key;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isStorable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+
+                String etag = etag(bytes);
+                if (bytes.length <= maxEntryBytes) {
+                    HttpHeaders headers = new HttpHeaders();
+                    getHeaders().forEach((name, values) -> {
+                        if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                            headers.put(name, List.copyOf(values));
+                        }
+                    });
+                    cache.put(key, new CachedResponse(HttpStatus.OK, headers, bytes, etag));
+                }
+                getHeaders().setETag(etag);
+                getHeaders().set(X_CACHE, "MISS");
+                if (notModified(request, etag)) {
+                    return writeNotModified(getDelegate());
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        // Сохраняются только полные 200 без новой сессии, если server-app не запретил хранение
+        private boolean isStorable() {
+            HttpHeaders headers = getHeaders();
+            String cacheControl = headers.getCacheControl();
+            return HttpStatus.OK.equals(getStatusCode())
+                    && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                    && (cacheControl == null || !cacheControl.contains("no-store"))
+                    && headers.getContentLength() <= maxEntryBytes;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.gateway;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogFilterTest {
+
+    private final AccessLogFilter filter = new AccessLogFilter();
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER);
+    private final Logger routeLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER + ".server-app-api");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final GatewayFilterChain upstream = exchange -> {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        return Mono.empty();
+    };
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLogger.addAppender(appender);
+        accessLogger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+        accessLogger.setLevel(null);
+        routeLogger.setLevel(null);
+    }
+
+    private MockServerWebExchange exchange(String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("server-app-api").uri(URI.create("http://server-app:8081")).predicate(e -> true).build());
+        return exchange;
+    }
+
+    private static Map<String, Object> fields(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .filter(pair -> pair.value != null)
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+
+    @Test
+    void filter_ShouldLogRouteAndStatusOnce() {
+        // Act
+        filter.filter(exchange("/api/houses/show"), upstream).block();
+
+        // Assert
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(AccessLogFilter.LOGGER + ".server-app-api", event.getLoggerName());
+        assertEquals("server-app-api", fields(event).get("route"));
+        assertEquals(429, fields(event).get("status"));
+        assertEquals("/api/houses/show", fields(event).get("path"));
+    }
+
+    @Test
+    void filter_WhenRouteLoggerAtDebug_ShouldAddDetails() {
+        // Arrange
+        routeLogger.setLevel(Level.DEBUG);
+
+        // Act
+        filter.filter(exchange("/api/houses/show?page=2"), upstream).block();
+
+        // Assert
+        assertEquals(List.of(Level.INFO, Level.DEBUG), appender.list.stream().map(ILoggingEvent::getLevel).toList());
+        assertEquals("page=2", fields(appender.list.get(1)).get("query"));
+    }
+}
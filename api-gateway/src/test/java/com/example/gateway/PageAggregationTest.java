@@ -0,0 +1,154 @@
+package com.example.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "guesthouse.response-cache.enabled=false"})
+class PageAggregationTest {
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final AtomicReference<String> forwardedCookie = new AtomicReference<>();
+    // Больше лимита буфера по умолчанию (256 КБ)
+    private static final String LARGE_JSON = "[" + String.join(",", Collections.nCopies(30_000, "{\"id\":123}")) + "]";
+
+    // Заглушка server-app: две медленные части, чтобы параллельные запросы пересеклись, отказ и зависшая часть
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/api/rentals/show", (request, response) -> {
+                        forwardedCookie.set(request.requestHeaders().get(HttpHeaders.COOKIE));
+                        return slowJson(response, "[{\"id\":1}]");
+                    })
+                    .get("/api/services/show", (request, response) -> slowJson(response, "[{\"id\":2,\"name\":\"Баня\"}]"))
+                    .get("/api/large", (request, response) -> response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(LARGE_JSON)))
+                    .get("/api/broken", (request, response) -> response.status(503).send())
+                    .get("/api/hanging", (request, response) -> response.sendString(Mono.never())))
+            .bindNow();
+
+    private static Mono<Void> slowJson(HttpServerResponse response, String body) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .sendString(Mono.just(body).delayElement(Duration.ofMillis(200)), StandardCharsets.UTF_8)
+                .then()
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        page(registry, 0, "/bff/form-page", "rentals=/api/rentals/show", "services=/api/services/show");
+        page(registry, 1, "/bff/partial-page", "rentals=/api/rentals/show", "broken=/api/broken", "hanging=/api/hanging");
+        page(registry, 2, "/bff/down-page", "broken=/api/broken");
+        page(registry, 3, "/bff/large-page", "large=/api/large", "services=/api/services/show");
+        page(registry, 4, "/bff/wide-page", "large=/api/large");
+        registry.add("spring.cloud.gateway.routes[4].filters[0].args.max-body-size", () -> "1MB");
+    }
+
+    private static void page(DynamicPropertyRegistry registry, int index, String path, String... legs) {
+        String route = "spring.cloud.gateway.routes[" + index + "].";
+        registry.add(route + "id", () -> path.substring(1).replace('/', '-'));
+        registry.add(route + "uri", () -> "http://localhost:" + upstream.port());
+        registry.add(route + "predicates[0]", () -> "Path=" + path);
+        registry.add(route + "filters[0].name", () -> "PageAggregation");
+        registry.add(route + "filters[0].args.timeout", () -> "500ms");
+        for (String leg : legs) {
+            String[] nameAndPath = leg.split("=");
+            registry.add(route + "filters[0].args.legs." + nameAndPath[0], () -> nameAndPath[1]);
+        }
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void page_ShouldFetchLegsInParallelWithClientSession() {
+        webTestClient.get().uri("/bff/form-page").cookie("JSESSIONID", "form").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rentals[0].id").isEqualTo(1)
+                .jsonPath("$.services[0].name").isEqualTo("Баня")
+                .jsonPath("$.errors").doesNotExist();
+
+        assertEquals(2, maxInFlight.get());
+        assertEquals("JSESSIONID=form", forwardedCookie.get());
+        assertEquals(1, meterRegistry.get(PageAggregationGatewayFilterFactory.METRIC)
+                .tag("route", "bff-form-page").tag("leg", "services").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void page_WithFailedLegs_ShouldReturnTheRestAndErrors() {
+        webTestClient.get().uri("/bff/partial-page").cookie("JSESSIONID", "partial").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rentals[0].id").isEqualTo(1)
+                .jsonPath("$.broken").doesNotExist()
+                .jsonPath("$.errors.broken").isEqualTo("503 SERVICE_UNAVAILABLE")
+                .jsonPath("$.errors.hanging").isEqualTo("Нет ответа за 500 мс");
+
+        assertEquals(1, meterRegistry.get(PageAggregationGatewayFilterFactory.METRIC)
+                .tag("route", "bff-partial-page").tag("leg", "hanging").tag("outcome", "timeout").timer().count());
+        assertEquals(1, meterRegistry.get(PageAggregationGatewayFilterFactory.METRIC)
+                .tag("route", "bff-partial-page").tag("leg", "broken").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void page_WithEveryLegFailed_ShouldReturn502() {
+        webTestClient.get().uri("/bff/down-page").cookie("JSESSIONID", "down").exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectBody()
+                .jsonPath("$.errors.broken").isEqualTo("503 SERVICE_UNAVAILABLE");
+    }
+
+    @Test
+    void page_WithLegOverBufferLimit_ShouldReportItAsError() {
+        assertTrue(LARGE_JSON.length() > 256 * 1024);
+
+        webTestClient.get().uri("/bff/large-page").cookie("JSESSIONID", "large").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.large").doesNotExist()
+                .jsonPath("$.services[0].name").isEqualTo("Баня")
+                .jsonPath("$.errors.large").isEqualTo("Ответ больше 256 КБ");
+    }
+
+    @Test
+    void page_WithRaisedBufferLimit_ShouldReturnLargeLeg() {
+        webTestClient.mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(1024 * 1024)).build()
+                .get().uri("/bff/wide-page").cookie("JSESSIONID", "wide").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.large.length()").isEqualTo(30_000)
+                .jsonPath("$.errors").doesNotExist();
+    }
+}
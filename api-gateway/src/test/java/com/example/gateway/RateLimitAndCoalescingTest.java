@@ -0,0 +1,127 @@
+package com.example.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = ApiGatewayApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "guesthouse.response-cache.enabled=false"})
+class RateLimitAndCoalescingTest {
+
+    private static final AtomicInteger upstreamCalls = new AtomicInteger();
+    private static final AtomicInteger openStreams = new AtomicInteger();
+    private static final AtomicInteger maxOpenStreams = new AtomicInteger();
+
+    // Заглушка server-app: медленный список, чтобы одновременные запросы пересеклись
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/api/rentals/show", (request, response) -> {
+                        upstreamCalls.incrementAndGet();
+                        return response.header(HttpHeaders.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just("[{\"id\":1}]").delayElement(Duration.ofMillis(300)));
+                    })
+                    .get("/api/houses/show", (request, response) -> response.sendString(Mono.just("[]")))
+                    .get("/api/events", (request, response) -> {
+                        maxOpenStreams.accumulateAndGet(openStreams.incrementAndGet(), Math::max);
+                        return response.header(HttpHeaders.CONTENT_TYPE, "text/event-stream")
+                                .sendString(Mono.just("id: 1\nevent: change\ndata: {}\n\n").delayElement(Duration.ofMillis(300)))
+                                .then()
+                                .doFinally(signal -> openStreams.decrementAndGet());
+                    }))
+            .bindNow();
+
+    // Список маршрутов берётся из одного источника свойств целиком, поэтому маршрут описан полностью
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        String route = "spring.cloud.gateway.routes[0].";
+        registry.add(route + "id", () -> "server-app-api");
+        registry.add(route + "uri", () -> "http://localhost:" + upstream.port());
+        registry.add(route + "predicates[0]", () -> "Path=/api/**");
+        registry.add(route + "filters[0].name", () -> "RequestRateLimiter");
+        registry.add(route + "filters[0].args.local-rate-limiter.replenish-rate", () -> "1");
+        registry.add(route + "filters[0].args.local-rate-limiter.burst-capacity", () -> "3");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void resetUpstream() {
+        upstreamCalls.set(0);
+    }
+
+    private WebTestClient.ResponseSpec get(String path, String session) {
+        return webTestClient.get().uri(path).cookie("JSESSIONID", session).exchange();
+    }
+
+    @Test
+    void requestsOverBurst_ShouldBeRejectedWith429() {
+        // Последовательные запросы не объединяются: каждый проходит лимит
+        get("/api/houses/show", "burst").expectStatus().isOk().expectHeader().valueEquals("X-RateLimit-Remaining", "2");
+        get("/api/houses/show", "burst").expectStatus().isOk();
+        get("/api/houses/show", "burst").expectStatus().isOk();
+
+        get("/api/houses/show", "burst").expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+        // Лимит считается отдельно для каждого клиента
+        get("/api/houses/show", "other").expectStatus().isOk();
+        assertEquals(1.0, meterRegistry.get(LocalRateLimiter.METRIC + ".rejected")
+                .tag("route", "server-app-api").tag("limit", "client").counter().count());
+    }
+
+    @Test
+    void concurrentIdenticalGets_ShouldReachUpstreamOnce() {
+        List<String> bodies = Flux.range(0, 3)
+                .flatMap(i -> Mono.fromCallable(() -> get("/api/rentals/show", "coalesce").expectStatus().isOk()
+                        .expectBody(String.class).returnResult().getResponseBody()).subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("[{\"id\":1}]", "[{\"id\":1}]", "[{\"id\":1}]"), bodies);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void concurrentEventStreams_ShouldBeOpenedUpstreamAtOnce() {
+        Flux.range(0, 3)
+                .flatMap(i -> Mono.fromCallable(() -> webTestClient.get().uri("/api/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM).cookie("JSESSIONID", "events").exchange()
+                        .expectStatus().isOk()
+                        .expectBody(String.class).returnResult().getResponseBody()).subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        // Потоки не ждут завершения друг друга, как объединяемые запросы
+        assertEquals(3, maxOpenStreams.get());
+    }
+}
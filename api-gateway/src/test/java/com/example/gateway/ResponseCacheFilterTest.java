@@ -0,0 +1,137 @@
+package com.example.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(List.of("/api/houses/show"), Set.of("js", "css"),
+            DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private String cacheControl = "no-cache, private";
+
+    private final GatewayFilterChain upstream = exchange -> {
+        int call = upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setCacheControl(cacheControl);
+        byte[] body = ("[{\"id\":" + call + "}]").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    };
+
+    private MockServerWebExchange get(String path, String session) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (session != null) {
+            request.cookie(new HttpCookie("JSESSIONID", session));
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private MockServerWebExchange send(MockServerWebExchange exchange) {
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    @Test
+    void filter_RepeatedGetInSameSession_ShouldServeFromCache() {
+        // Act
+        MockServerWebExchange first = send(get("/api/houses/show", "s1"));
+        MockServerWebExchange second = send(get("/api/houses/show", "s1"));
+
+        // Assert
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE));
+        assertEquals("[{\"id\":1}]", second.getResponse().getBodyAsString().block());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertEquals("no-cache, private", second.getResponse().getHeaders().getCacheControl());
+    }
+
+    @Test
+    void filter_WithMatchingIfNoneMatch_ShouldReturnNotModified() {
+        // Arrange
+        String etag = send(get("/api/houses/show", "s1")).getResponse().getHeaders().getETag();
+
+        // Act
+        MockServerWebExchange conditional = send(MockServerWebExchange.from(MockServerHttpRequest.get("/api/houses/show")
+                .cookie(new HttpCookie("JSESSIONID", "s1"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)));
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void filter_ForOtherSessionOrAnonymous_ShouldNotShareResponse() {
+        // Act
+        send(get("/api/houses/show", "s1"));
+        send(get("/api/houses/show", "s2"));
+        send(get("/api/houses/show", null));
+        send(get("/api/houses/show", null));
+
+        // Assert
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void filter_MutationOfResource_ShouldInvalidateCachedReads() {
+        // Arrange
+        send(get("/api/houses/show", "s1"));
+        send(get("/rentals.js", "s1"));
+
+        // Act
+        send(MockServerWebExchange.from(MockServerHttpRequest.put("/api/houses/5")
+                .cookie(new HttpCookie("JSESSIONID", "s2"))));
+        MockServerWebExchange afterUpdate = send(get("/api/houses/show", "s1"));
+        MockServerWebExchange script = send(get("/rentals.js", "s1"));
+
+        // Assert
+        assertEquals("MISS", afterUpdate.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE));
+        assertEquals("HIT", script.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE));
+    }
+
+    @Test
+    void filter_WhenUpstreamForbidsStoring_ShouldNotCache() {
+        // Arrange
+        cacheControl = "no-cache, no-store, max-age=0, must-revalidate";
+
+        // Act
+        send(get("/api/houses/show", "s1"));
+        send(get("/api/houses/show", "s1"));
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void filter_ForPathOutsideWhitelist_ShouldPassThrough() {
+        // Act
+        MockServerWebExchange first = send(get("/api/rentals/page", "s1"));
+        send(get("/api/rentals/page", "s1"));
+
+        // Assert
+        assertEquals(2, upstreamCalls.get());
+        assertNull(first.getResponse().getHeaders().getFirst(ResponseCacheFilter.X_CACHE));
+    }
+}
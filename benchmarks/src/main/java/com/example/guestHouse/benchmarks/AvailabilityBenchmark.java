@@ -0,0 +1,104 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.service.DateInterval;
+import com.example.guestHouse.service.HouseAvailabilityIndex;
+import com.example.guestHouse.service.PlannerRun;
+import com.example.guestHouse.service.RentalService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.concurrent.TimeUnit;
+
+// Занятость домов: карта периодов для календаря, проверка пересечения при бронировании, окно доступности
+// поиск свободных домов на даты по битовым картам и сетка планировщика.
+// Для 10M аренд: -p rentals=10000000 и -jvmArgs -Xmx8g
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rentals;
+
+    private HouseAvailabilityIndex index;
+    private RentalService rentalService;
+    private int houses;
+    private List<Long> houseIds;
+    private long days;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new HouseAvailabilityIndex();
+        index.rebuild(SyntheticData.bookedPeriods(rentals));
+        // Репозитории не нужны: проверяемые методы работают только с индексом
+        rentalService = new RentalService(null, null, null, index, null, null, null);
+        houses = SyntheticData.housesFor(rentals);
+        houseIds = LongStream.rangeClosed(1, houses).boxed().toList();
+        days = Math.min(rentals, SyntheticData.RENTALS_PER_HOUSE) * 10L;
+    }
+
+    @State(Scope.Thread)
+    public static class Query {
+
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        long houseId;
+        LocalDate start;
+
+        @Setup(Level.Invocation)
+        public void next(AvailabilityBenchmark benchmark) {
+            houseId = 1 + random.nextInt(benchmark.houses);
+            start = SyntheticData.FIRST_DAY.plusDays(random.nextLong(benchmark.days));
+        }
+    }
+
+    @Benchmark
+    public Map<Long, List<Map<String, LocalDate>>> bookedPeriodsByHouse() {
+        return rentalService.getBookedPeriodsByHouse();
+    }
+
+    // Карта пересобирается после каждого изменения индекса
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Long, List<Map<String, LocalDate>>> bookedPeriodsByHouseAfterChange() {
+        index.remove(1L);
+        index.put(1L, 1L, SyntheticData.FIRST_DAY, SyntheticData.FIRST_DAY);
+        return rentalService.getBookedPeriodsByHouse();
+    }
+
+    @Benchmark
+    public Long findOverlap(Query query) {
+        return index.findOverlap(query.houseId, query.start, query.start.plusDays(7), null);
+    }
+
+    @Benchmark
+    public List<DateInterval> bookedIntervalsForCalendar(Query query) {
+        return rentalService.getBookedIntervals(query.houseId, query.start, query.start.plusMonths(3), null);
+    }
+
+    // Проверка всех домов, как в /api/houses/available, без чтения справочника из БД
+    @Benchmark
+    public int freeHouses(Query query) {
+        LocalDate to = query.start.plusDays(7);
+        int free = 0;
+        for (long houseId = 1; houseId <= houses; houseId++) {
+            if (index.isFree(houseId, query.start, to)) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    // Окно планировщика в 90 дней по всем домам, как в /api/planner
+    @Benchmark
+    public List<PlannerRun> plannerRuns(Query query) {
+        return index.findRuns(houseIds, query.start, query.start.plusDays(89));
+    }
+}
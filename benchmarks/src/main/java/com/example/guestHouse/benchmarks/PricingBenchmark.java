@@ -0,0 +1,53 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.repository.Rental;
+import com.example.guestHouse.service.PricingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пересчёт стоимости аренд без БД: то, что PricingEngine делает с пакетом после чтения сумм услуг,
+// например при смене цены дома или полном пересчёте
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rentals;
+
+    private List<Rental> entities;
+    private Map<Long, BigDecimal> servicesTotals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        entities = SyntheticData.rentals(rentals);
+        servicesTotals = new HashMap<>();
+        for (Rental rental : entities) {
+            // Примерно у каждой третьей аренды есть услуги, у каждой пятой - скидка
+            if (random.nextInt(3) == 0) {
+                servicesTotals.put(rental.getId(), BigDecimal.valueOf(500L * (1 + random.nextInt(4))));
+            }
+            if (random.nextInt(5) == 0) {
+                rental.setDiscount(BigDecimal.valueOf(5L * (1 + random.nextInt(6))));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Rental> repriceAll() {
+        for (Rental rental : entities) {
+            PricingEngine.price(rental, servicesTotals.get(rental.getId()));
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.controller.apiController.JsonArrayWriter;
+import com.example.guestHouse.repository.Rental;
+import com.example.guestHouse.repository.RentalRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация списков аренд: сущности целиком, плоские строки и потоковая запись строк, как в /api/rentals/show
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rentals;
+
+    private ObjectMapper objectMapper;
+    private JsonArrayWriter jsonArrayWriter;
+    private List<Rental> entities;
+    private List<RentalRow> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Настройки как у ObjectMapper, который создаёт Spring Boot
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        jsonArrayWriter = new JsonArrayWriter(objectMapper);
+        entities = SyntheticData.rentals(rentals);
+        rows = entities.stream().map(RentalRow::of).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] serializeRows() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public void streamRows() throws IOException {
+        jsonArrayWriter.<RentalRow>stream(rows::forEach).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.service.Suggestion;
+import com.example.guestHouse.service.SuggestIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Подсказки при выборе клиента: начало имени, имя с фамилией и фрагмент телефона
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private SuggestIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new SuggestIndex();
+        index.rebuild(SyntheticData.clientSuggestions(clients));
+    }
+
+    @State(Scope.Thread)
+    public static class Query {
+
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        String prefix;
+        String fullName;
+        String phone;
+
+        @Setup(Level.Invocation)
+        public void next(SuggestBenchmark benchmark) {
+            String firstName = SyntheticData.FIRST_NAMES[random.nextInt(SyntheticData.FIRST_NAMES.length)];
+            String lastName = SyntheticData.LAST_NAMES[random.nextInt(SyntheticData.LAST_NAMES.length)];
+            prefix = firstName.substring(0, 2);
+            fullName = firstName + " " + lastName.substring(0, 3);
+            phone = String.format("%07d", random.nextInt(benchmark.clients)).substring(2);
+        }
+    }
+
+    @Benchmark
+    public List<Suggestion> byPrefix(Query query) {
+        return index.search(query.prefix, SuggestIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<Suggestion> byTwoWords(Query query) {
+        return index.search(query.fullName, SuggestIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<Suggestion> byPhoneFragment(Query query) {
+        return index.search(query.phone, SuggestIndex.DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.repository.*;
+import com.example.guestHouse.repository.enums.Role;
+import com.example.guestHouse.service.Suggestion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Детерминированные синтетические данные для бенчмарков: от тысяч до десятков миллионов аренд.
+// На каждый дом приходится RENTALS_PER_HOUSE непересекающихся аренд подряд, как в реальном календаре
+public final class SyntheticData {
+
+    public static final int RENTALS_PER_HOUSE = 500;
+    public static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+
+    public static final String[] FIRST_NAMES = {"Александр", "Алексей", "Анна", "Андрей", "Дмитрий", "Екатерина",
+            "Елена", "Иван", "Ирина", "Мария", "Михаил", "Наталья", "Николай", "Ольга", "Сергей", "Татьяна"};
+    public static final String[] LAST_NAMES = {"Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров",
+            "Соколов", "Михайлов", "Новиков", "Фёдоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семёнов", "Егоров"};
+
+    private static final long SEED = 20240601L;
+
+    private SyntheticData() {
+    }
+
+    public static int housesFor(int rentals) {
+        return Math.max(1, (rentals + RENTALS_PER_HOUSE - 1) / RENTALS_PER_HOUSE);
+    }
+
+    public static List<BookedPeriod> bookedPeriods(int rentals) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int houses = housesFor(rentals);
+        List<BookedPeriod> periods = new ArrayList<>(rentals);
+        LocalDate[] nextFree = new LocalDate[houses];
+        for (long id = 1; id <= rentals; id++) {
+            int house = (int) ((id - 1) % houses);
+            LocalDate start = (nextFree[house] == null ? FIRST_DAY : nextFree[house]).plusDays(random.nextInt(4));
+            LocalDate end = start.plusDays(1 + random.nextInt(14));
+            nextFree[house] = end.plusDays(1);
+            periods.add(new BookedPeriod(id, house + 1L, start, end));
+        }
+        return periods;
+    }
+
+    // Сущности аренд с общими домами и клиентами, как их отдаёт JPA
+    public static List<Rental> rentals(int rentals) {
+        int houseCount = housesFor(rentals);
+        List<House> houses = new ArrayList<>(houseCount);
+        for (int i = 0; i < houseCount; i++) {
+            houses.add(new House(i + 1L, "Дом " + (i + 1), BigDecimal.valueOf(1000 + i % 50 * 100L)));
+        }
+        int clientCount = Math.max(1, rentals / 3);
+        List<Client> clients = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(new Client(i + 1L, "Клиент " + (i + 1), String.format("7999%07d", i)));
+        }
+
+        List<Rental> result = new ArrayList<>(rentals);
+        for (BookedPeriod period : bookedPeriods(rentals)) {
+            House house = houses.get((int) (period.houseId() - 1));
+            Client client = clients.get((int) (period.rentalId() % clientCount));
+            long days = period.endDate().toEpochDay() - period.startDate().toEpochDay() + 1;
+            result.add(new Rental(period.rentalId(), house, client, period.startDate(), period.endDate(),
+                    house.getPrice().multiply(BigDecimal.valueOf(days))));
+        }
+        return result;
+    }
+
+    public static List<RentalRow> rentalRows(int rentals) {
+        return rentals(rentals).stream().map(RentalRow::of).toList();
+    }
+
+    public static List<User> users(int users) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<User> result = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            Set<Role> roles = random.nextInt(10) == 0 ? Set.of(Role.ROLE_USER, Role.ROLE_ADMIN) : Set.of(Role.ROLE_USER);
+            result.add(new User(i + 1L, "user" + i, true, "{noop}password", roles, LocalDateTime.of(2024, 1, 1, 0, 0)));
+        }
+        return result;
+    }
+
+    // Подсказки по клиентам: имя и фамилия из коротких списков, поэтому у частых префиксов тысячи совпадений
+    public static List<Suggestion> clientSuggestions(int clients) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Suggestion> result = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + (i % 2 == 0 ? "" : "а");
+            result.add(new Suggestion(i + 1L, name, String.format("7999%07d", i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.guestHouse.benchmarks;
+
+import com.example.guestHouse.repository.User;
+import com.example.guestHouse.repository.UserRepository;
+import com.example.guestHouse.service.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка пользователя и проверка роли администратора, как при каждом запросе к /admin/**.
+// Репозиторий заменён картой в памяти, чтобы измерялась только работа приложения
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserAuthorityBenchmark {
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    private CustomUserDetailsService userDetailsService;
+    private AuthorityAuthorizationManager<Object> adminAuthority;
+    private List<String> usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, User> byUsername = new HashMap<>();
+        for (User user : SyntheticData.users(users)) {
+            byUsername.put(user.getUsername(), user);
+        }
+        usernames = List.copyOf(byUsername.keySet());
+
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsername")) {
+                        return byUsername.get((String) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        userDetailsService = new CustomUserDetailsService(userRepository);
+        adminAuthority = AuthorityAuthorizationManager.hasAuthority("ROLE_ADMIN");
+    }
+
+    @State(Scope.Thread)
+    public static class Login {
+
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        String username;
+
+        @Setup(Level.Invocation)
+        public void next(UserAuthorityBenchmark benchmark) {
+            username = benchmark.usernames.get(random.nextInt(benchmark.usernames.size()));
+        }
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername(Login login) {
+        return userDetailsService.loadUserByUsername(login.username);
+    }
+
+    @Benchmark
+    public AuthorizationResult checkAdminAuthority(Login login) {
+        UserDetails user = userDetailsService.loadUserByUsername(login.username);
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+        return adminAuthority.authorize(() -> authentication, null);
+    }
+}
@@ -0,0 +1,45 @@
+// Нагрузка на API server-app: списки аренд, домов и страницы аренд с токеном из /api/auth/token.
+// Запуск: k6 run -e BASE_URL=http://localhost:8081 -e USERNAME=... -e PASSWORD=... loadtest/api-load.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081';
+
+export const options = {
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 50 },
+                { duration: '1m', target: 400 },
+                { duration: '1m', target: 400 },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const response = http.post(`${BASE_URL}/api/auth/token`,
+        JSON.stringify({ username: __ENV.USERNAME, password: __ENV.PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(response, { 'token issued': r => r.status === 200 });
+    return { token: response.json('token') };
+}
+
+export default function (data) {
+    const params = { headers: { Authorization: `Bearer ${data.token}` } };
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/rentals/page?size=50`, null, params],
+        ['GET', `${BASE_URL}/api/houses/show`, null, params],
+        ['GET', `${BASE_URL}/api/rentals/show`, null, params],
+    ]);
+    for (const response of responses) {
+        check(response, {
+            'status 200': r => r.status === 200,
+            'not rejected by bulkhead': r => r.status !== 503,
+        });
+    }
+}
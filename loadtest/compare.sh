@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Сравнение server-app на потоках платформы (Java 17) и на виртуальных потоках (Java 21, профиль virtual-threads).
+# Нужны docker compose, k6, jq и JDK 21 для второй сборки. Пользователь для входа передаётся через USERNAME и PASSWORD.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+: "${USERNAME:?USERNAME не задан}"
+: "${PASSWORD:?PASSWORD не задан}"
+export GUESTHOUSE_API_TOKEN_ENABLED=true
+export GUESTHOUSE_API_TOKEN_SECRET="${GUESTHOUSE_API_TOKEN_SECRET:-$(head -c 48 /dev/urandom | base64)}"
+
+wait_for_health() {
+    for _ in $(seq 1 60); do
+        if curl -fs http://localhost:9081/actuator/health > /dev/null; then
+            return 0
+        fi
+        sleep 2
+    done
+    echo "server-app не поднялся" >&2
+    return 1
+}
+
+run() {
+    local name=$1
+    shift
+    docker compose "$@" up -d --build server-app
+    wait_for_health
+    k6 run -e BASE_URL=http://localhost:8081 -e USERNAME="$USERNAME" -e PASSWORD="$PASSWORD" \
+        --summary-export "loadtest/results-$name.json" loadtest/api-load.js
+    docker compose "$@" stop server-app
+}
+
+(cd server-app && mvn -B -q package -DskipTests)
+run platform -f docker-compose.yml
+
+(cd server-app && mvn -B -q package -DskipTests -Pjava21)
+run virtual -f docker-compose.yml -f docker-compose.virtual-threads.yml
+
+printf '%-10s %10s %10s %10s %10s\n' mode 'req/s' 'p95 ms' 'p99 ms' 'failed'
+for name in platform virtual; do
+    jq -r --arg name "$name" '[$name,
+        (.metrics.http_reqs.rate | floor),
+        (.metrics.http_req_duration["p(95)"] | floor),
+        (.metrics.http_req_duration["p(99)"] | floor),
+        (.metrics.http_req_failed.value * 100 | tostring + "%")] | @tsv' "loadtest/results-$name.json" \
+        | xargs printf '%-10s %10s %10s %10s %10s\n'
+done
@@ -0,0 +1,143 @@
+package com.example.guestHouse.configurations;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Журнал доступа: одна JSON-строка на запрос (маршрут, статус, время, время в БД, пользователь) в логгер guesthouse.access.
+// Строки пишет асинхронный appender из logback-spring.xml: при переполнении очереди они отбрасываются, а запрос не ждёт.
+// Подробности запроса пишутся, если для логгера обработчика (guesthouse.access.HouseController и т.п.) включён DEBUG,
+// в том числе на лету через /actuator/loggers на порту управления
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String LOGGER = "guesthouse.access";
+
+    private static final ThreadLocal<Entry> CURRENT = new ThreadLocal<>();
+
+    // Заполняется по ходу запроса: время в БД считает JdbcTimeListener, пользователя - фильтр из captureUser
+    private static final class Entry {
+        private final long startedAt = System.nanoTime();
+        private long jdbcNanos;
+        private int jdbcCalls;
+        private String user;
+    }
+
+    static void recordJdbc(long nanos) {
+        Entry entry = CURRENT.get();
+        if (entry != null) {
+            entry.jdbcNanos += nanos;
+            entry.jdbcCalls++;
+        }
+    }
+
+    // Контекст безопасности очищается раньше, чем запрос вернётся в этот фильтр,
+    // поэтому пользователь запоминается фильтром внутри цепочки Spring Security
+    public static Filter captureUser() {
+        return (request, response, chain) -> {
+            Entry entry = CURRENT.get();
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (entry != null && authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+                entry.user = authentication.getName();
+            }
+            chain.doFilter(request, response);
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Entry entry = new Entry();
+        CURRENT.set(entry);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+            // Потоковая выгрузка дописывается после выхода из фильтра: строка пишется по её завершении
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LoggingListener(() -> log(request, response, entry)));
+            } else {
+                log(request, response, entry);
+            }
+        }
+    }
+
+    private static void log(HttpServletRequest request, HttpServletResponse response, Entry entry) {
+        Logger logger = LoggerFactory.getLogger(LOGGER + "." + handlerName(request));
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Путь без параметров вроде ;jsessionid, чтобы идентификатор сессии не попал в журнал
+        String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        logger.atInfo()
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("route", pattern != null ? pattern.toString() : path)
+                .addKeyValue("status", response.getStatus())
+                .addKeyValue("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.startedAt))
+                .addKeyValue("dbMs", TimeUnit.NANOSECONDS.toMillis(entry.jdbcNanos))
+                .addKeyValue("dbCalls", entry.jdbcCalls)
+                .addKeyValue("user", entry.user)
+                .log("{} {} {}", request.getMethod(), path, response.getStatus());
+        if (logger.isDebugEnabled()) {
+            // Cookie и Authorization не пишутся
+            logger.atDebug()
+                    .addKeyValue("query", request.getQueryString())
+                    .addKeyValue("requestContentType", request.getContentType())
+                    .addKeyValue("responseContentType", response.getContentType())
+                    .addKeyValue("userAgent", request.getHeader(HttpHeaders.USER_AGENT))
+                    .addKeyValue("remoteAddr", request.getRemoteAddr())
+                    .log("{} {} details", request.getMethod(), path);
+        }
+    }
+
+    // Имя класса контроллера; static - файлы из /static, none - запрос не дошёл до обработчика
+    private static String handlerName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName();
+        }
+        return handler != null ? "static" : "none";
+    }
+
+    private record LoggingListener(Runnable log) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
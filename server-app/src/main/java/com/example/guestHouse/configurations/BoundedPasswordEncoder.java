@@ -0,0 +1,96 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Хэширование и проверка паролей на отдельном ограниченном пуле потоков.
+// Всплеск входов занимает не больше threads ядер, а сверх очереди отклоняется сразу, не забирая потоки Tomcat на BCrypt.
+// Время операций пишется в guesthouse.password, загрузка пула - в executor.* с именем passwordEncoder
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    public static final String METRIC = "guesthouse.password";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-encoder-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordEncoder");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try {
+            return submit("encode", () -> delegate.encode(rawPassword));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Сервер перегружен, повторите попытку позже", e);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return submit("matches", () -> delegate.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            // Для входа это ошибка аутентификации: форма покажет /login?error, API вернёт 401
+            throw new AuthenticationServiceException("Сервер перегружен, повторите вход позже", e);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(String operation, Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer(operation).record(task));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(METRIC + ".rejected", "operation", operation).increment();
+            throw e;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Проверка пароля прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder(METRIC)
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.guestHouse.configurations;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Кэш справочных данных: дома, услуги и клиенты по id и по естественным ключам, а также пользователи по имени.
+// Сбрасывается методами create/update/delete соответствующих сервисов. Внутри транзакции и сброс, и запись откладываются
+// до коммита: иначе в кэше остались бы старая строка, прочитанная до коммита изменения, или значение из транзакции,
+// которая затем откатилась
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String HOUSES = "houses";
+    public static final String HOUSES_BY_NAME = "housesByName";
+    public static final String SERVICES = "services";
+    public static final String SERVICES_BY_NAME = "servicesByName";
+    public static final String CLIENTS = "clients";
+    public static final String CLIENTS_BY_PHONE = "clientsByPhone";
+    public static final String USER_DETAILS = "userDetails";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${guesthouse.cache.spec:maximumSize=1000,expireAfterWrite=10m}") String spec,
+                                     @Value("${guesthouse.cache.user-spec:maximumSize=10000,expireAfterWrite=5m}") String userSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                HOUSES, HOUSES_BY_NAME, SERVICES, SERVICES_BY_NAME, CLIENTS, CLIENTS_BY_PHONE) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new TransactionAwareCacheDecorator(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        // Статистика попаданий нужна для /admin/cache-stats
+        cacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        // Пользователи для входа: свой размер и время жизни, сбрасываются при смене роли и удалении
+        cacheManager.registerCustomCache(USER_DETAILS, Caffeine.from(userSpec).recordStats().build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.guestHouse.configurations;
+
+import com.example.guestHouse.controller.apiController.ChangeFeedController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ограничивает число одновременно обрабатываемых запросов размером пула соединений.
+// С виртуальными потоками Tomcat принимает сколько угодно запросов, и без ограничения они копятся в ожидании соединения Hikari
+// до connection-timeout. Запрос, не дождавшийся разрешения за max-wait, получает 503 с Retry-After.
+// Потоковые выгрузки держат соединение до конца записи, поэтому разрешение освобождается по завершении async-обработки
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+@ConditionalOnProperty(prefix = "guesthouse.bulkhead", name = "enabled", havingValue = "true")
+public class JdbcBulkheadFilter extends OncePerRequestFilter {
+
+    public static final String METRIC = "guesthouse.bulkhead";
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Counter rejected;
+
+    public JdbcBulkheadFilter(@Value("${guesthouse.bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                              @Value("${guesthouse.bulkhead.max-wait:2s}") Duration maxWait,
+                              MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(permits, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejected = meterRegistry.counter(METRIC + ".rejected");
+        Gauge.builder(METRIC + ".active", this.permits, semaphore -> permits - semaphore.availablePermits())
+                .description("Requests currently holding a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder(METRIC + ".waiting", this.permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    // Статика (js, css) не обращается к БД, а поток изменений держит соединение открытым часами и к БД не обращается
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.lastIndexOf('.') > path.lastIndexOf('/') || path.equals(ChangeFeedController.PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                reject(response);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response);
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    // Ответ пишется сразу, без перехода на /error, который для анонимного пользователя закрыт входом
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Сервер перегружен, повторите запрос позже");
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
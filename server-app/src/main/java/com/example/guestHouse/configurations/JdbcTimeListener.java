@@ -0,0 +1,30 @@
+package com.example.guestHouse.configurations;
+
+import org.hibernate.BaseSessionEventListener;
+
+// Время выполнения SQL-запросов и пакетов в сессии Hibernate для журнала доступа.
+// Hibernate создаёт экземпляр на каждую сессию (hibernate.session.events.auto), поэтому поля не разделяются между потоками
+public class JdbcTimeListener extends BaseSessionEventListener {
+
+    private long startedAt;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        AccessLogFilter.recordJdbc(System.nanoTime() - startedAt);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        AccessLogFilter.recordJdbc(System.nanoTime() - startedAt);
+    }
+}
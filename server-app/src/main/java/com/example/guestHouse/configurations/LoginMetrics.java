@@ -0,0 +1,30 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+// Число успешных и неудачных входов (форма и выдача токенов) в guesthouse.logins
+@Component
+public class LoginMetrics {
+
+    public static final String METRIC = "guesthouse.logins";
+
+    private final MeterRegistry meterRegistry;
+
+    public LoginMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        meterRegistry.counter(METRIC, "result", "success").increment();
+    }
+
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        meterRegistry.counter(METRIC, "result", "failure").increment();
+    }
+}
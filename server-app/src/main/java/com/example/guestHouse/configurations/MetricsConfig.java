@@ -0,0 +1,30 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Метрики приложения: время методов сервисов (@Timed) и число SQL-запросов на HTTP-запрос.
+// HTTP-запросы, пул Hikari, кэши и вызовы репозиториев измеряет сам Spring Boot Actuator
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "guesthouse.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCountCustomizer(StatementCountFilter statementCountFilter) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCountFilter);
+            // Время SQL-запросов для журнала доступа (AccessLogFilter)
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimeListener.class.getName());
+        };
+    }
+}
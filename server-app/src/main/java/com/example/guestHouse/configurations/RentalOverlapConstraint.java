@@ -0,0 +1,50 @@
+package com.example.guestHouse.configurations;
+
+import com.example.guestHouse.repository.Rental;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Защита от двойного бронирования на уровне БД: проверка по индексу занятости не видит параллельных транзакций.
+// В PostgreSQL - ограничение исключения по дому и периоду на GiST-индексе: конфликтуют только вставки
+// с пересекающимися периодами одного дома, остальные бронирования друг друга не ждут
+@Component
+public class RentalOverlapConstraint {
+
+    private static final Logger log = LoggerFactory.getLogger(RentalOverlapConstraint.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory нужен только для порядка: таблицу rentals создаёт ddl-auto при его инициализации
+    public RentalOverlapConstraint(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void createConstraint() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)",
+                Boolean.class, Rental.NO_OVERLAP_CONSTRAINT);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        try {
+            // btree_gist нужен для сравнения house на равенство внутри GiST-индекса
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute("ALTER TABLE rentals ADD CONSTRAINT " + Rental.NO_OVERLAP_CONSTRAINT +
+                    " EXCLUDE USING gist (house WITH =, daterange(start_date, end_date, '[]') WITH &&)");
+        } catch (DataAccessException e) {
+            // Например, в БД уже есть пересекающиеся аренды или нет прав на расширение: приложение работает с проверкой по индексу
+            log.warn("Не удалось создать ограничение {}: {}", Rental.NO_OVERLAP_CONSTRAINT, e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.guestHouse.configurations;
+
+import com.example.guestHouse.repository.Rental;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Аренды, созданные до перехода на последовательность, получали id через identity.
+// При старте сдвигаем rentals_seq за максимальный существующий id, чтобы выданные блоки не пересеклись со старыми строками
+@Component
+public class RentalSequenceInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory нужен только для порядка: последовательность создаёт ddl-auto при его инициализации
+    public RentalSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequence() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT setval('rentals_seq', GREATEST(" +
+                "(SELECT COALESCE(MAX(id), 0) FROM rentals) + " + Rental.ID_ALLOCATION_SIZE + ", " +
+                "(SELECT last_value FROM rentals_seq)))", Long.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.EnableRetry;
+
+// Повтор транзакций, проигравших оптимистическую блокировку (@RetryOnConflict).
+// Совет повтора стоит снаружи транзакционного, поэтому каждая попытка - новая транзакция с заново прочитанными данными
+@Configuration
+@EnableRetry
+public class RetryConfig {
+
+    // Неудачные попытки: и те, после которых был повтор, и последняя, ушедшая клиенту как 409
+    @Bean
+    public RetryListener conflictRetryMetrics(MeterRegistry meterRegistry) {
+        Counter conflicts = Counter.builder("guesthouse.optimistic.conflicts")
+                .description("Конфликты оптимистической блокировки при изменении данных")
+                .register(meterRegistry);
+        return new RetryListener() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+                conflicts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.guestHouse.configurations;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Ограниченный повтор идемпотентного изменения при конфликте версий: guesthouse.retry.max-attempts попыток
+// со случайной экспоненциальной паузой. Только для методов, которые задают значения, а не приращения
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Retryable(retryFor = OptimisticLockingFailureException.class,
+        maxAttemptsExpression = "${guesthouse.retry.max-attempts:3}",
+        backoff = @Backoff(delayExpression = "${guesthouse.retry.delay-ms:20}", maxDelayExpression = "${guesthouse.retry.max-delay-ms:200}",
+                multiplier = 2, random = true))
+public @interface RetryOnConflict {
+}
@@ -1,30 +1,97 @@
 package com.example.guestHouse.configurations;
 
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import com.example.guestHouse.controller.apiController.ApiTokenController;
+import com.example.guestHouse.service.ApiTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.util.Map;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
-    private final UserDetailsService userDetailService;
+    private static final String BCRYPT = "bcrypt";
+
+    // Запросы к /api/** с токеном в заголовке Authorization: без сессии и без CSRF,
+    // так как браузер не подставляет этот заголовок сам. Форма входа и страницы обслуживаются цепочкой ниже
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(prefix = "guesthouse.api-token", name = "enabled", havingValue = "true")
+    protected SecurityFilterChain apiTokenFilterChain(HttpSecurity http, ApiTokenService apiTokenService) throws Exception {
+        http
+                .securityMatcher(new OrRequestMatcher(
+                        antMatcher(HttpMethod.POST, ApiTokenController.PATH),
+                        new AndRequestMatcher(antMatcher("/api/**"), ApiTokenFilter::hasBearerToken)))
+                .authorizeHttpRequests((requests) -> requests
+                        .requestMatchers(antMatcher(ApiTokenController.PATH)).permitAll()
+                        .anyRequest().authenticated()
+                )
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .exceptionHandling((exceptions) -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new ApiTokenFilter(apiTokenService), AnonymousAuthenticationFilter.class)
+                .addFilterAfter(AccessLogFilter.captureUser(), AnonymousAuthenticationFilter.class);
+
+        return http.build();
+    }
+
+    // Смена уровней логирования - только администратору. Для curl вход по HTTP Basic; запрос с этим заголовком
+    // освобождён от CSRF, так как браузер не подставляет его сам. Запросы с сессионной кукой по-прежнему требуют токен
+    @Bean
+    @Order(2)
+    protected SecurityFilterChain loggersFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.to("loggers"))
+                .authorizeHttpRequests((requests) -> requests
+                        .anyRequest().hasAuthority("ROLE_ADMIN")
+                )
+                .httpBasic(Customizer.withDefaults())
+                .csrf((csrf) -> csrf.ignoringRequestMatchers(SecurityConfig::hasBasicCredentials))
+                .addFilterAfter(AccessLogFilter.captureUser(), AnonymousAuthenticationFilter.class);
+
+        return http.build();
+    }
 
-    public SecurityConfig(UserDetailsService userDetailsService) {
-        this.userDetailService = userDetailsService;
+    private static boolean hasBasicCredentials(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.startsWith("Basic ");
     }
 
     @Bean
     protected SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests((requests) -> requests
+                        // Проверка состояния и сбор метрик Prometheus, доступны только на порту управления
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
                         .requestMatchers("/", "/registration").permitAll()
                         .requestMatchers("/admin/**")
                         .hasAuthority("ROLE_ADMIN")
@@ -34,18 +101,28 @@ public class SecurityConfig {
                         .loginPage("/login")
                         .permitAll()
                 )
-                .logout((logout) -> logout.permitAll());
+                .logout((logout) -> logout.permitAll())
+                .addFilterAfter(AccessLogFilter.captureUser(), AnonymousAuthenticationFilter.class);
 
         return http.build();
     }
 
-    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailService)
-                .passwordEncoder(passwordEncoder());
+    @Bean
+    AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
+        return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // Новые хэши сохраняются как {bcrypt} с заданной стоимостью. Старые хэши без префикса и с меньшей стоимостью
+    // проверяются как есть и перехэшируются при успешном входе (CustomUserDetailsService.updatePassword)
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(8);
+    PasswordEncoder passwordEncoder(@Value("${guesthouse.security.bcrypt-strength:10}") int strength,
+                                    @Value("${guesthouse.security.password-threads:0}") int threads,
+                                    @Value("${guesthouse.security.password-queue:64}") int queueCapacity,
+                                    MeterRegistry meterRegistry) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity, meterRegistry);
     }
 }
@@ -0,0 +1,59 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Считает SQL-запросы, подготовленные Hibernate за время HTTP-запроса, и пишет их в hibernate.statements.per.request
+// с тегом шаблона URI. Потоковые ответы дочитываются в другом потоке и в счётчик не попадают
+@Component
+public class StatementCountFilter extends OncePerRequestFilter implements StatementInspector {
+
+    public static final String METRIC = "hibernate.statements.per.request";
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] counter = new int[1];
+        COUNTER.set(counter);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            COUNTER.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC)
+                    .description("SQL statements prepared while handling one HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(counter[0]);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+// Потоковые ответы (StreamingResponseBody: выгрузки CSV/NDJSON и /show) пишутся на отдельном ограниченном пуле,
+// а не на общем applicationTaskExecutor, и со своим сроком вместо 30 с по умолчанию у Tomcat: выгрузка за год
+// иначе обрывалась на середине. Каждый такой ответ держит соединение с БД, поэтому потоков меньше пула Hikari;
+// сверх очереди запрос сразу получает 503. Загрузка пула - в executor.* с именем streaming
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final Duration timeout;
+
+    public StreamingConfig(@Value("${guesthouse.streaming.threads:3}") int threads,
+                           @Value("${guesthouse.streaming.queue:16}") int queueCapacity,
+                           @Value("${guesthouse.streaming.timeout:30m}") Duration timeout,
+                           MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("streaming-");
+        executor.setDaemon(true);
+        executor.initialize();
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), "streaming");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(timeout.toMillis());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.example.guestHouse.service.AnalyticsService;
+import com.example.guestHouse.service.HouseStats;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "api/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // Загрузка, ADR, RevPAR и выручка услуг по домам за день, неделю или месяц
+    @GetMapping("/houses")
+    public List<HouseStats> houseStats(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       @RequestParam(defaultValue = "month") String granularity,
+                                       @RequestParam(required = false) Long houseId
+    ){
+        return analyticsService.houseStats(from, to, AnalyticsService.Granularity.of(granularity), houseId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.example.guestHouse.service.ApiTokenService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+// Выдача токена для /api/** по имени пользователя и паролю. Доступно только при guesthouse.api-token.enabled=true
+@RestController
+@RequestMapping(path = ApiTokenController.PATH)
+@ConditionalOnProperty(prefix = "guesthouse.api-token", name = "enabled", havingValue = "true")
+public class ApiTokenController {
+
+    public static final String PATH = "/api/auth/token";
+
+    private final AuthenticationManager authenticationManager;
+    private final ApiTokenService apiTokenService;
+
+    public ApiTokenController(AuthenticationManager authenticationManager, ApiTokenService apiTokenService) {
+        this.authenticationManager = authenticationManager;
+        this.apiTokenService = apiTokenService;
+    }
+
+    public record Credentials(String username, String password) {
+    }
+
+    @PostMapping
+    public ApiTokenService.ApiToken issue(@RequestBody Credentials credentials) {
+        Authentication authentication = authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(credentials.username(), credentials.password()));
+        return apiTokenService.issue((UserDetails) authentication.getPrincipal());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.example.guestHouse.service.ChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class ChangeFeedController {
+
+    public static final String PATH = "/api/events";
+
+    private final ChangeFeed changeFeed;
+
+    public ChangeFeedController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    // since - номер, с которым страница отрисована; при переподключении браузер сам присылает Last-Event-ID
+    @GetMapping(path = PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+                             @RequestParam(required = false) Long since
+    ){
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.guestHouse.controller.apiController;
 
 import com.example.guestHouse.repository.Client;
+import com.example.guestHouse.service.KeysetPage;
 import com.example.guestHouse.service.ClientService;
+import com.example.guestHouse.service.Suggestion;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,6 +24,22 @@ public class ClientController {
         return clientService.findAll();
     }
 
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(required = false) Integer limit
+    ){
+        return clientService.suggest(q, limit);
+    }
+
+    @GetMapping("/page")
+    public KeysetPage<Client> findPage(@RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer size,
+                                       @RequestParam(defaultValue = "name") String sort,
+                                       @RequestParam(defaultValue = "ASC") Sort.Direction direction
+    ){
+        return clientService.findPage(cursor, size, sort, direction);
+    }
+
     @PostMapping
     public Client create(@RequestBody Client client) {
         return clientService.create(client);
@@ -34,8 +53,9 @@ public class ClientController {
     @PutMapping(path = "{id}")
     public void update(@PathVariable Long id,
                        @RequestParam(required = false) String name,
-                       @RequestParam(required = false) String phoneNumber
+                       @RequestParam(required = false) String phoneNumber,
+                       @RequestParam(required = false) Long version
     ){
-        clientService.update(id, name, phoneNumber);
+        clientService.update(id, name, phoneNumber, version);
     }
 }
@@ -0,0 +1,108 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Выгрузка строк в CSV или NDJSON прямо в поток ответа: память не зависит от числа строк.
+// Сжатие gzip включается настройками server.compression
+@Component
+public class ExportWriter {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+
+    public ExportWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public record Column<T>(String name, Function<T, ?> value) {
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> export(String format, String fileName, List<Column<T>> columns,
+                                                            Consumer<Consumer<T>> rows) {
+        StreamingResponseBody body;
+        MediaType mediaType;
+        String extension = format.toLowerCase(Locale.ROOT);
+        switch (extension) {
+            case "csv" -> {
+                body = outputStream -> writeCsv(outputStream, columns, rows);
+                mediaType = TEXT_CSV;
+            }
+            case "ndjson" -> {
+                body = outputStream -> writeNdjson(outputStream, rows);
+                mediaType = MediaType.APPLICATION_NDJSON;
+            }
+            default -> throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: "+format);
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName + "." + extension).build().toString())
+                .body(body);
+    }
+
+    private <T> void writeCsv(OutputStream outputStream, List<Column<T>> columns, Consumer<Consumer<T>> rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns.stream().map(Column::name).toList()));
+        writer.write("\r\n");
+        rows.accept(row -> {
+            try {
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(columns.get(i).value().apply(row)));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private <T> void writeNdjson(OutputStream outputStream, Consumer<Consumer<T>> rows) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            // Строки разделяются только переводом строки, без пробела между корневыми значениями
+            generator.setRootValueSeparator(null);
+            rows.accept(row -> {
+                try {
+                    generator.writeObject(row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal number ? number.toPlainString() : value.toString();
+        // Текст, начинающийся как формула, табличный редактор выполнил бы при открытии файла
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.guestHouse.controller.apiController;
 
 import com.example.guestHouse.repository.House;
+import com.example.guestHouse.service.KeysetPage;
 import com.example.guestHouse.service.HouseService;
+import com.example.guestHouse.service.Suggestion;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,9 +24,36 @@ public class HouseController {
         this.houseService = houseService;
     }
 
+    // Справочник читается часто и меняется редко: разрешаем хранить ответ, но только с проверкой актуальности по ETag.
+    // Кэш api-gateway отдаёт его сам и сбрасывает при изменениях
     @GetMapping("/show")
-    public List<House> findAll() {
-        return houseService.findAll();
+    public ResponseEntity<List<House>> findAll() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(houseService.findAll());
+    }
+
+    @GetMapping("/available")
+    public List<House> findAvailable(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ){
+        return houseService.findAvailable(from, to);
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(required = false) Integer limit
+    ){
+        return houseService.suggest(q, limit);
+    }
+
+    @GetMapping("/page")
+    public KeysetPage<House> findPage(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(defaultValue = "name") String sort,
+                                      @RequestParam(defaultValue = "ASC") Sort.Direction direction
+    ){
+        return houseService.findPage(cursor, size, sort, direction);
     }
 
     @PostMapping
@@ -33,8 +67,9 @@ public class HouseController {
     @PutMapping(path = "{id}")
     public void update(@PathVariable Long id,
                        @RequestParam(required = false) String name,
-                       @RequestParam(required = false) BigDecimal price
+                       @RequestParam(required = false) BigDecimal price,
+                       @RequestParam(required = false) Long version
     ){
-        houseService.update(id, name, price);
+        houseService.update(id, name, price, version);
     }
 }
\ No newline at end of file
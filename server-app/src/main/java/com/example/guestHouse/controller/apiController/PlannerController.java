@@ -0,0 +1,30 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.example.guestHouse.service.Planner;
+import com.example.guestHouse.service.PlannerService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping(path = "api/planner")
+public class PlannerController {
+
+    private final PlannerService plannerService;
+
+    public PlannerController(PlannerService plannerService) {
+        this.plannerService = plannerService;
+    }
+
+    // Сетка "дома × дни" с занятыми клетками в виде отрезков (дом, смещение, длина, аренда)
+    @GetMapping
+    public Planner planner(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ){
+        return plannerService.planner(from, to);
+    }
+}
@@ -3,8 +3,17 @@ package com.example.guestHouse.controller.apiController;
 import com.example.guestHouse.repository.Client;
 import com.example.guestHouse.repository.House;
 import com.example.guestHouse.repository.Rental;
+import com.example.guestHouse.repository.RentalRow;
+import com.example.guestHouse.service.DateInterval;
+import com.example.guestHouse.service.KeysetPage;
+import com.example.guestHouse.service.RentalImport;
+import com.example.guestHouse.service.RentalImportReport;
 import com.example.guestHouse.service.RentalService;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -14,20 +23,69 @@ import java.util.List;
 @RequestMapping(path = "api/rentals")
 public class RentalController {
 
+    private static final List<ExportWriter.Column<RentalRow>> EXPORT_COLUMNS = List.of(
+            new ExportWriter.Column<>("id", RentalRow::id),
+            new ExportWriter.Column<>("house_id", RentalRow::houseId),
+            new ExportWriter.Column<>("house", RentalRow::houseName),
+            new ExportWriter.Column<>("client_id", RentalRow::clientId),
+            new ExportWriter.Column<>("client", RentalRow::clientName),
+            new ExportWriter.Column<>("start_date", RentalRow::startDate),
+            new ExportWriter.Column<>("end_date", RentalRow::endDate),
+            new ExportWriter.Column<>("summary_price", RentalRow::summaryPrice));
+
     private final RentalService rentalService;
+    private final JsonArrayWriter jsonArrayWriter;
+    private final ExportWriter exportWriter;
 
-    public RentalController(RentalService rentalService) {
+    public RentalController(RentalService rentalService, JsonArrayWriter jsonArrayWriter, ExportWriter exportWriter) {
         this.rentalService = rentalService;
+        this.jsonArrayWriter = jsonArrayWriter;
+        this.exportWriter = exportWriter;
     }
 
     @GetMapping("/show")
-    public List<Rental> findAll() {
-        return rentalService.findAll();
+    public ResponseEntity<StreamingResponseBody> findAll() {
+        return jsonArrayWriter.stream(rentalService::forEachRow);
+    }
+
+    // Выгрузка аренд, пересекающих период, в CSV или NDJSON
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ){
+        RentalService.checkExportPeriod(from, to);
+        return exportWriter.export(format, "rentals", EXPORT_COLUMNS, rows -> rentalService.exportRows(from, to, rows));
+    }
+
+    @GetMapping("/page")
+    public KeysetPage<RentalRow> findPage(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size,
+                                          @RequestParam(defaultValue = "startDate") String sort,
+                                          @RequestParam(defaultValue = "DESC") Sort.Direction direction
+    ){
+        return rentalService.findPage(cursor, size, sort, direction);
+    }
+
+    // Занятые интервалы дома только для видимого окна календаря
+    @GetMapping("/availability")
+    public List<DateInterval> availability(@RequestParam Long houseId,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                           @RequestParam(required = false) Long excludeRentalId
+    ){
+        return rentalService.getBookedIntervals(houseId, from, to, excludeRentalId);
     }
 
     @PostMapping
-    public Rental create(@RequestBody Rental rental) {
-        return rentalService.create(rental);
+    public RentalRow create(@RequestBody Rental rental) {
+        return RentalRow.of(rentalService.create(rental));
+    }
+
+    // Импорт аренд пакетом, в ответе результат по каждой строке
+    @PostMapping("/batch")
+    public RentalImportReport createBatch(@RequestBody List<RentalImport> rentals) {
+        return rentalService.createBatch(rentals);
     }
 
     @DeleteMapping(path = "{id}")
@@ -40,9 +98,10 @@ public class RentalController {
                        @RequestParam(required = false) House house,
                        @RequestParam(required = false) Client client,
                        @RequestParam(required = false) LocalDate startDate,
-                       @RequestParam(required = false) LocalDate endDate
+                       @RequestParam(required = false) LocalDate endDate,
+                       @RequestParam(required = false) Long version
     ){
-        rentalService.update(id, house, client, startDate, endDate);
+        rentalService.update(id, house, client, startDate, endDate, version);
     }
 
     @PutMapping("/discount")
@@ -1,9 +1,16 @@
 package com.example.guestHouse.controller.apiController;
 
 import com.example.guestHouse.repository.*;
+import com.example.guestHouse.service.KeysetPage;
+import com.example.guestHouse.service.RentalService;
 import com.example.guestHouse.service.RentalsServicesService;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,20 +18,54 @@ import java.util.List;
 @RequestMapping(path = "api/rentServices")
 public class RentalsServicesController {
 
+    private static final List<ExportWriter.Column<RentalsServicesRow>> EXPORT_COLUMNS = List.of(
+            new ExportWriter.Column<>("id", RentalsServicesRow::id),
+            new ExportWriter.Column<>("rental_id", RentalsServicesRow::rentalId),
+            new ExportWriter.Column<>("client", RentalsServicesRow::clientName),
+            new ExportWriter.Column<>("service_id", RentalsServicesRow::serviceId),
+            new ExportWriter.Column<>("service", RentalsServicesRow::serviceName),
+            new ExportWriter.Column<>("price", RentalsServicesRow::servicePrice),
+            new ExportWriter.Column<>("ex_time", RentalsServicesRow::exTime));
+
     private final RentalsServicesService rentalsServicesService;
+    private final JsonArrayWriter jsonArrayWriter;
+    private final ExportWriter exportWriter;
 
-    public RentalsServicesController(RentalsServicesService rentalsServicesService) {
+    public RentalsServicesController(RentalsServicesService rentalsServicesService, JsonArrayWriter jsonArrayWriter,
+                                     ExportWriter exportWriter) {
         this.rentalsServicesService = rentalsServicesService;
+        this.jsonArrayWriter = jsonArrayWriter;
+        this.exportWriter = exportWriter;
     }
 
     @GetMapping("/show")
-    public List<RentalsServices> findAll() {
-        return rentalsServicesService.findAll();
+    public ResponseEntity<StreamingResponseBody> findAll() {
+        return jsonArrayWriter.stream(rentalsServicesService::forEachRow);
+    }
+
+    // Выгрузка заказанных услуг за период в CSV или NDJSON
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ){
+        RentalService.checkExportPeriod(from, to);
+        return exportWriter.export(format, "rental-services", EXPORT_COLUMNS,
+                rows -> rentalsServicesService.exportRows(from, to, rows));
+    }
+
+    @GetMapping("/page")
+    public KeysetPage<RentalsServicesRow> findPage(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @RequestParam(defaultValue = "exTime") String sort,
+                                                   @RequestParam(defaultValue = "DESC") Sort.Direction direction
+    ){
+        return rentalsServicesService.findPage(cursor, size, sort, direction);
     }
 
     @PostMapping
-    public RentalsServices create(@RequestBody RentalsServices rentalsServices) {
-        return rentalsServicesService.create(rentalsServices);
+    public RentalsServicesRow create(@RequestBody RentalsServices rentalsServices) {
+        return RentalsServicesRow.of(rentalsServicesService.create(rentalsServices));
     }
 
     @DeleteMapping(path = "{id}")
@@ -36,8 +77,9 @@ public class RentalsServicesController {
     public void update(@PathVariable Long id,
                        @RequestParam(required = false) Service service,
                        @RequestParam(required = false) Rental rental,
-                       @RequestParam(required = false) LocalDateTime exTime
+                       @RequestParam(required = false) LocalDateTime exTime,
+                       @RequestParam(required = false) Long version
     ){
-        rentalsServicesService.update(id, service, rental, exTime);
+        rentalsServicesService.update(id, service, rental, exTime, version);
     }
 }
@@ -1,7 +1,11 @@
 package com.example.guestHouse.controller.apiController;
 
 import com.example.guestHouse.repository.Service;
+import com.example.guestHouse.service.KeysetPage;
 import com.example.guestHouse.service.ServiceService;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -17,9 +21,22 @@ public class ServiceController {
         this.serviceService = serviceService;
     }
 
+    // Справочник читается часто и меняется редко: разрешаем хранить ответ, но только с проверкой актуальности по ETag.
+    // Кэш api-gateway отдаёт его сам и сбрасывает при изменениях
     @GetMapping("/show")
-    public List<Service> findAll() {
-        return serviceService.findAll();
+    public ResponseEntity<List<Service>> findAll() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(serviceService.findAll());
+    }
+
+    @GetMapping("/page")
+    public KeysetPage<Service> findPage(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer size,
+                                        @RequestParam(defaultValue = "name") String sort,
+                                        @RequestParam(defaultValue = "ASC") Sort.Direction direction
+    ){
+        return serviceService.findPage(cursor, size, sort, direction);
     }
 
     @PostMapping
@@ -33,8 +50,9 @@ public class ServiceController {
     @PutMapping(path = "{id}")
     public void update(@PathVariable Long id,
                        @RequestParam(required = false) String name,
-                       @RequestParam(required = false) BigDecimal price
+                       @RequestParam(required = false) BigDecimal price,
+                       @RequestParam(required = false) Long version
     ){
-        serviceService.update(id, name, price);
+        serviceService.update(id, name, price, version);
     }
 }
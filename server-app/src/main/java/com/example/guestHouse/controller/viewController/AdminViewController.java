@@ -2,7 +2,13 @@ package com.example.guestHouse.controller.viewController;
 
 import com.example.guestHouse.repository.User;
 import com.example.guestHouse.repository.enums.Role;
+import com.example.guestHouse.service.DailyStatsAggregator;
+import com.example.guestHouse.service.PricingEngine;
+import com.example.guestHouse.service.RentalService;
 import com.example.guestHouse.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -11,15 +17,25 @@ import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Controller
 @PreAuthorize("hasAuthority('ROLE_ADMIN')")
 public class AdminViewController {
 
     private final UserService userService;
+    private final RentalService rentalService;
+    private final CacheManager cacheManager;
+    private final DailyStatsAggregator dailyStats;
+    private final PricingEngine pricingEngine;
 
-    public AdminViewController(UserService userService) {
+    public AdminViewController(UserService userService, RentalService rentalService, CacheManager cacheManager,
+                               DailyStatsAggregator dailyStats, PricingEngine pricingEngine) {
         this.userService = userService;
+        this.rentalService = rentalService;
+        this.cacheManager = cacheManager;
+        this.dailyStats = dailyStats;
+        this.pricingEngine = pricingEngine;
     }
 
     @GetMapping("/admin")
@@ -65,6 +81,46 @@ public class AdminViewController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/admin/rentals/reindex")
+    public String rebuildAvailabilityIndex() {
+        rentalService.rebuildAvailabilityIndex();
+        return "redirect:/admin";
+    }
+
+    // Полный пересчёт агрегатов отчётов, например после изменения данных в БД вручную
+    @PostMapping("/admin/analytics/rebuild")
+    public String rebuildDailyStats() {
+        dailyStats.rebuild();
+        return "redirect:/admin";
+    }
+
+    // Пересчёт стоимости всех аренд по текущим ценам домов, услуг и скидкам
+    @PostMapping("/admin/rentals/reprice")
+    public String repriceRentals() {
+        pricingEngine.repriceAll();
+        return "redirect:/admin";
+    }
+
+    // Попадания и промахи кэшей справочников
+    @GetMapping("/admin/cache-stats")
+    @ResponseBody
+    public Map<String, Map<String, Object>> cacheStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            // Кэши обёрнуты для сброса после коммита, статистика берётся у самого Caffeine
+            if (cacheManager.getCache(name).getNativeCache() instanceof Cache<?, ?> cache) {
+                CacheStats cacheStats = cache.stats();
+                stats.put(name, Map.of(
+                        "size", cache.estimatedSize(),
+                        "hits", cacheStats.hitCount(),
+                        "misses", cacheStats.missCount(),
+                        "hitRate", cacheStats.hitRate(),
+                        "evictions", cacheStats.evictionCount()));
+            }
+        }
+        return stats;
+    }
+
     @GetMapping("/admin/registration")
     public String registration() {
         return "registration";
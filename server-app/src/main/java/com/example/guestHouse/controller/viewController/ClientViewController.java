@@ -1,6 +1,9 @@
 package com.example.guestHouse.controller.viewController;
 
+import com.example.guestHouse.repository.Client;
 import com.example.guestHouse.service.ClientService;
+import com.example.guestHouse.service.KeysetPage;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -16,7 +19,10 @@ public class ClientViewController {
 
     @GetMapping("/clients")
     public String clientsPage(Model model) {
-        model.addAttribute("clients", clientService.findAll());
+        // Первая страница, остальные страница догружает через /api/clients/page
+        KeysetPage<Client> page = clientService.findPage(null, null, "name", Sort.Direction.ASC);
+        model.addAttribute("clients", page.items());
+        model.addAttribute("nextCursor", page.next());
         return "clients"; // возвращает clients.html
     }
 
@@ -0,0 +1,14 @@
+package com.example.guestHouse.controller.viewController;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+@Controller
+public class PlannerViewController {
+
+    @GetMapping("/planner")
+    public String plannerPage() {
+        // Сетку страница запрашивает сама через /api/planner для выбранного окна
+        return "planner";
+    }
+}
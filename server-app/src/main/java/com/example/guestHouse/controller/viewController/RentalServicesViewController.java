@@ -1,6 +1,10 @@
 package com.example.guestHouse.controller.viewController;
 
+import com.example.guestHouse.repository.RentalsServicesRow;
+import com.example.guestHouse.service.ChangeFeed;
+import com.example.guestHouse.service.KeysetPage;
 import com.example.guestHouse.service.RentalsServicesService;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,14 +13,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class RentalServicesViewController {
 
     private final RentalsServicesService rentalsServicesService;
+    private final ChangeFeed changeFeed;
 
-    public RentalServicesViewController(RentalsServicesService rentalsServicesService) {
+    public RentalServicesViewController(RentalsServicesService rentalsServicesService, ChangeFeed changeFeed) {
         this.rentalsServicesService = rentalsServicesService;
+        this.changeFeed = changeFeed;
     }
 
     @GetMapping("/rentalServices")
     public String rentalServicesPage(Model model) {
-        model.addAttribute("rentalServices", rentalsServicesService.findAll());
+        model.addAttribute("eventSequence", changeFeed.currentSequence());
+        // Первая страница, остальные страница догружает через /api/rentServices/page
+        KeysetPage<RentalsServicesRow> page = rentalsServicesService.findPage(null, null, "exTime", Sort.Direction.DESC);
+        model.addAttribute("rentalServices", page.items());
+        model.addAttribute("nextCursor", page.next());
         return "rentalServices";
     }
 }
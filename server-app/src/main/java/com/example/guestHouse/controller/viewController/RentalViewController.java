@@ -1,29 +1,33 @@
 package com.example.guestHouse.controller.viewController;
 
+import com.example.guestHouse.repository.RentalRow;
+import com.example.guestHouse.service.ChangeFeed;
+import com.example.guestHouse.service.KeysetPage;
 import com.example.guestHouse.service.RentalService;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-
 @Controller
 public class RentalViewController {
 
     private final RentalService rentalService;
+    private final ChangeFeed changeFeed;
 
-    public RentalViewController(RentalService rentalService) {
+    public RentalViewController(RentalService rentalService, ChangeFeed changeFeed) {
         this.rentalService = rentalService;
+        this.changeFeed = changeFeed;
     }
 
     @GetMapping("/rentals")
     public String rentalsPage(Model model) {
-        model.addAttribute("rentals", rentalService.findAll());
-        // Получаем список занятых периодов в формате {houseId: [{startDate, endDate}, ...]}
-        Map<Long, List<Map<String, LocalDate>>> bookedPeriods = rentalService.getBookedPeriodsByHouse();
-        model.addAttribute("bookedPeriods", bookedPeriods);
+        // Номер события берётся до чтения: изменения, успевшие попасть в страницу, при подписке придут повторно и применятся без вреда
+        model.addAttribute("eventSequence", changeFeed.currentSequence());
+        // Первая страница, остальные страница догружает через /api/rentals/page
+        KeysetPage<RentalRow> page = rentalService.findPage(null, null, "startDate", Sort.Direction.DESC);
+        model.addAttribute("rentals", page.items());
+        model.addAttribute("nextCursor", page.next());
         return "rentals";
     }
 }
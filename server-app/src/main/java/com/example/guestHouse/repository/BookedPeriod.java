@@ -0,0 +1,6 @@
+package com.example.guestHouse.repository;
+
+import java.time.LocalDate;
+
+public record BookedPeriod(Long rentalId, Long houseId, LocalDate startDate, LocalDate endDate) {
+}
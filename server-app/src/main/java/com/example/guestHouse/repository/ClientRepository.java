@@ -1,17 +1,26 @@
 package com.example.guestHouse.repository;
 
-import org.springframework.data.domain.Sort;
+import com.example.guestHouse.configurations.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, JpaSpecificationExecutor<Client> {
 
+    // Запрос с null ничего не находит, а ключом кэша null быть не может
+    @Cacheable(cacheNames = CacheConfig.CLIENTS_BY_PHONE, condition = "#p0 != null")
     @Query(value = "select * from clients where phone_number = :phoneNumber", nativeQuery = true)
     Optional<Client> findByPhoneNumber(String phoneNumber);
 
+    // Отсоединённая копия из кэша: только для чтения, изменять нужно сущность из findById
+    @Cacheable(CacheConfig.CLIENTS)
+    @Query("SELECT c FROM Client c WHERE c.id = :id")
+    Optional<Client> findCachedById(Long id);
+
     @Query(value = "select * from clients order by name", nativeQuery = true)
     List<Client> findAllSortedByAlphabet();
 }
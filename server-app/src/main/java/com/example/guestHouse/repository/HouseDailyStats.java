@@ -0,0 +1,97 @@
+package com.example.guestHouse.repository;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Агрегаты дома за один день для отчётов. Строки пишет только DailyStatsAggregator приращениями через SQL,
+// поэтому для Hibernate сущность неизменяемая
+@Entity
+@Immutable
+@IdClass(HouseDailyStats.Key.class)
+@Table(name = "house_daily_stats", indexes = @Index(name = "house_daily_stats_date_idx", columnList = "statDate"))
+public class HouseDailyStats {
+
+    @Id
+    private Long houseId;
+
+    @Id
+    private LocalDate statDate;
+
+    // Число аренд, занимающих дом в этот день (0 или 1, пока аренды не пересекаются)
+    private int occupiedDays;
+
+    // Доля стоимости аренды, приходящаяся на этот день
+    @Column(precision = 19, scale = 2)
+    private BigDecimal roomRevenue;
+
+    private int serviceCount;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal serviceRevenue;
+
+    public HouseDailyStats(Long houseId, LocalDate statDate, int occupiedDays, BigDecimal roomRevenue,
+                           int serviceCount, BigDecimal serviceRevenue) {
+        this.houseId = houseId;
+        this.statDate = statDate;
+        this.occupiedDays = occupiedDays;
+        this.roomRevenue = roomRevenue;
+        this.serviceCount = serviceCount;
+        this.serviceRevenue = serviceRevenue;
+    }
+
+    public HouseDailyStats() {
+    }
+
+    public Long getHouseId() {
+        return houseId;
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public int getOccupiedDays() {
+        return occupiedDays;
+    }
+
+    public BigDecimal getRoomRevenue() {
+        return roomRevenue;
+    }
+
+    public int getServiceCount() {
+        return serviceCount;
+    }
+
+    public BigDecimal getServiceRevenue() {
+        return serviceRevenue;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long houseId;
+        private LocalDate statDate;
+
+        public Key(Long houseId, LocalDate statDate) {
+            this.houseId = houseId;
+            this.statDate = statDate;
+        }
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(houseId, key.houseId) && Objects.equals(statDate, key.statDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(houseId, statDate);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.guestHouse.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface HouseDailyStatsRepository extends JpaRepository<HouseDailyStats, HouseDailyStats.Key> {
+
+    @Query("SELECT s FROM HouseDailyStats s WHERE s.statDate BETWEEN :from AND :to AND (:houseId IS NULL OR s.houseId = :houseId)")
+    List<HouseDailyStats> findByPeriod(LocalDate from, LocalDate to, Long houseId);
+
+    // Исходные данные для полной перестройки агрегатов
+    @Query("SELECT new com.example.guestHouse.repository.RentalCharge(r.house.id, r.startDate, r.endDate, COALESCE(r.roomPrice, r.summaryPrice)) FROM Rental r")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RentalCharge> streamRentalCharges();
+
+    @Query("SELECT new com.example.guestHouse.repository.ServiceCharge(r.house.id, rs.exTime, s.price) " +
+            "FROM RentalsServices rs JOIN rs.rental r JOIN rs.service s")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ServiceCharge> streamServiceCharges();
+
+    // Услуги аренды: при переносе аренды в другой дом их выручка переходит вместе с ней
+    @Query("SELECT new com.example.guestHouse.repository.ServiceCharge(r.house.id, rs.exTime, s.price) " +
+            "FROM RentalsServices rs JOIN rs.rental r JOIN rs.service s WHERE r.id = :rentalId")
+    List<ServiceCharge> findServiceChargesByRental(Long rentalId);
+
+    // Выполнения услуги: при смене цены выручка пересчитывается по всем дням, где она оказывалась
+    @Query("SELECT new com.example.guestHouse.repository.ServiceCharge(r.house.id, rs.exTime, s.price) " +
+            "FROM RentalsServices rs JOIN rs.rental r JOIN rs.service s WHERE s.id = :serviceId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ServiceCharge> streamServiceChargesByService(Long serviceId);
+}
@@ -1,16 +1,25 @@
 package com.example.guestHouse.repository;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface HouseRepository extends JpaRepository<House, Long> {
+public interface HouseRepository extends JpaRepository<House, Long>, JpaSpecificationExecutor<House> {
 
+    @Cacheable(cacheNames = CacheConfig.HOUSES_BY_NAME, condition = "#p0 != null")
     @Query(value = "select * from houses where name = :name", nativeQuery = true)
     Optional<House> findByName(String name);
 
+    // Отсоединённая копия из кэша: только для чтения, изменять нужно сущность из findById
+    @Cacheable(CacheConfig.HOUSES)
+    @Query("SELECT h FROM House h WHERE h.id = :id")
+    Optional<House> findCachedById(Long id);
+
     @Query(value = "select * from houses order by name", nativeQuery = true)
     List<House> findAllSortedByAlphabet();
 }
@@ -1,6 +1,8 @@
 package com.example.guestHouse.repository;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -11,10 +13,26 @@ import java.util.Set;
 @Table(name = "rentals")
 public class Rental {
 
+    // Последовательность с выдачей блоками по 50 id: в отличие от IDENTITY позволяет Hibernate вставлять аренды батчами
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Ограничение исключения в PostgreSQL: периоды аренд одного дома не пересекаются (см. RentalOverlapConstraint)
+    public static final String NO_OVERLAP_CONSTRAINT = "rentals_no_overlap";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rentals_seq")
+    @SequenceGenerator(name = "rentals_seq", sequenceName = "rentals_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    // Оптимистическая блокировка: одновременные правки одной аренды не затирают друг друга, проигравшая транзакция
+    // откатывается с ObjectOptimisticLockingFailureException. Для уже существующих строк столбец заполняется нулём
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Не отдаётся в JSON: списки строятся из проекций, а не обходом графа сущностей
+    @JsonIgnore
     @OneToMany(mappedBy = "rental")
     private Set<RentalsServices> rentalsServices = new HashSet<>();
 
@@ -30,6 +48,13 @@ public class Rental {
     private LocalDate endDate;
     private BigDecimal summaryPrice;
 
+    // Скидка на проживание в процентах, услуги оплачиваются без скидки
+    @Column(precision = 5, scale = 2)
+    private BigDecimal discount;
+
+    // Стоимость проживания со скидкой; summaryPrice = roomPrice + услуги. Пересчитываются PricingEngine
+    private BigDecimal roomPrice;
+
     public Rental(Long id, House house, Client client, LocalDate startDate, LocalDate endDate, BigDecimal summaryPrice) {
         this.id = id;
         this.house = house;
@@ -51,6 +76,10 @@ public class Rental {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public House getHouse() {
         return house;
     }
@@ -90,4 +119,20 @@ public class Rental {
     public void setSummaryPrice(BigDecimal summaryPrice) {
         this.summaryPrice = summaryPrice;
     }
+
+    public BigDecimal getDiscount() {
+        return discount;
+    }
+
+    public void setDiscount(BigDecimal discount) {
+        this.discount = discount;
+    }
+
+    public BigDecimal getRoomPrice() {
+        return roomPrice;
+    }
+
+    public void setRoomPrice(BigDecimal roomPrice) {
+        this.roomPrice = roomPrice;
+    }
 }
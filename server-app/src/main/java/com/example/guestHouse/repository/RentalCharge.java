@@ -0,0 +1,14 @@
+package com.example.guestHouse.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Аренда в объёме, нужном агрегатам: дом, занятые дни (включительно) и стоимость проживания без услуг.
+// У аренд, ещё не пересчитанных PricingEngine, стоимостью проживания считается summaryPrice
+public record RentalCharge(Long houseId, LocalDate startDate, LocalDate endDate, BigDecimal roomPrice) {
+
+    public static RentalCharge of(Rental rental) {
+        return new RentalCharge(rental.getHouse().getId(), rental.getStartDate(), rental.getEndDate(),
+                rental.getRoomPrice() != null ? rental.getRoomPrice() : rental.getSummaryPrice());
+    }
+}
@@ -1,16 +1,21 @@
 package com.example.guestHouse.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.jpa.repository.query.Procedure;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface RentalRepository extends JpaRepository<Rental, Long> {
+public interface RentalRepository extends JpaRepository<Rental, Long>, JpaSpecificationExecutor<Rental> {
+
+    // Связи, загружаемые одним запросом со страницей списка
+    String[] PAGE_FETCH = {"house", "client"};
 
 //    @Query(value = "select * " +
 //            "from rentals " +
@@ -19,9 +24,30 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     @Query("SELECT r FROM Rental r WHERE r.house = :house AND r.client = :client AND r.startDate = :startDate AND r.endDate = :endDate AND r.id <> :id")
     Optional<Rental> findByRentalDate(House house, Client client, LocalDate startDate, LocalDate endDate, Long id);
 
-    @Query(value = "select * from rentals order by client", nativeQuery = true)
-    List<Rental> findAllSortedByClients();
+    // Один запрос с join: дома и клиенты не догружаются отдельными select'ами на каждую строку
+    @Query("SELECT new com.example.guestHouse.repository.RentalRow(r.id, h.id, h.name, c.id, c.name, r.startDate, r.endDate, r.summaryPrice, r.version) " +
+            "FROM Rental r JOIN r.house h JOIN r.client c ORDER BY c.id, r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    Stream<RentalRow> streamAllRowsSortedByClients();
+
+    // Выгрузка для бухгалтерии: аренды, пересекающие период [from, to], границы необязательны
+    @Query("SELECT new com.example.guestHouse.repository.RentalRow(r.id, h.id, h.name, c.id, c.name, r.startDate, r.endDate, r.summaryPrice, r.version) " +
+            "FROM Rental r JOIN r.house h JOIN r.client c " +
+            "WHERE (:from IS NULL OR r.endDate >= :from) AND (:to IS NULL OR r.startDate <= :to) " +
+            "ORDER BY r.startDate, r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RentalRow> streamRowsByPeriod(LocalDate from, LocalDate to);
+
+    @Query("SELECT new com.example.guestHouse.repository.BookedPeriod(r.id, r.house.id, r.startDate, r.endDate) FROM Rental r")
+    List<BookedPeriod> findAllBookedPeriods();
+
+    // Аренды для пересчёта стоимости после смены цены дома
+    List<Rental> findAllByHouseId(Long houseId);
+
+    // Аренды, в которых заказывалась услуга
+    @Query("SELECT DISTINCT rs.rental FROM RentalsServices rs WHERE rs.service.id = :serviceId")
+    List<Rental> findAllByServiceId(Long serviceId);
 
-    @Procedure(procedureName = "set_discount")
-    void setDiscount(BigDecimal discount_value, @Param("rent_id") Long rentalId);
+    @Query("SELECT r.id FROM Rental r ORDER BY r.id")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,16 @@
+package com.example.guestHouse.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Строка списка аренд: только поля, нужные таблице, без загрузки связанных сущностей
+public record RentalRow(Long id, Long houseId, String houseName, Long clientId, String clientName,
+                        LocalDate startDate, LocalDate endDate, BigDecimal summaryPrice, Long version) {
+
+    public static RentalRow of(Rental rental) {
+        return new RentalRow(rental.getId(),
+                rental.getHouse().getId(), rental.getHouse().getName(),
+                rental.getClient().getId(), rental.getClient().getName(),
+                rental.getStartDate(), rental.getEndDate(), rental.getSummaryPrice(), rental.getVersion());
+    }
+}
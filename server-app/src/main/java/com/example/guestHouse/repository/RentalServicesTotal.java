@@ -0,0 +1,7 @@
+package com.example.guestHouse.repository;
+
+import java.math.BigDecimal;
+
+// Сумма текущих цен услуг, заказанных в аренде
+public record RentalServicesTotal(Long rentalId, BigDecimal total) {
+}
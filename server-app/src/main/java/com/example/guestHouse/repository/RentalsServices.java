@@ -1,6 +1,7 @@
 package com.example.guestHouse.repository;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -12,6 +13,11 @@ public class RentalsServices {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "service", nullable = false)
     private Service service;
@@ -41,6 +47,10 @@ public class RentalsServices {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public Service getService() {
         return service;
     }
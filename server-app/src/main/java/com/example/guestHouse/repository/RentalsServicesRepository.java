@@ -1,7 +1,37 @@
 package com.example.guestHouse.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface RentalsServicesRepository extends JpaRepository<RentalsServices, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+public interface RentalsServicesRepository extends JpaRepository<RentalsServices, Long>, JpaSpecificationExecutor<RentalsServices> {
+
+    // Связи, загружаемые одним запросом со страницей списка
+    String[] PAGE_FETCH = {"service", "rental", "rental.house", "rental.client"};
+
+    @Query("SELECT new com.example.guestHouse.repository.RentalsServicesRow(rs.id, s.id, s.name, s.price, r.id, c.name, rs.exTime, rs.version) " +
+            "FROM RentalsServices rs JOIN rs.service s JOIN rs.rental r JOIN r.client c ORDER BY rs.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    Stream<RentalsServicesRow> streamAllRows();
+
+    // Выгрузка для бухгалтерии: услуги со временем выполнения в [from, to), границы необязательны
+    @Query("SELECT new com.example.guestHouse.repository.RentalsServicesRow(rs.id, s.id, s.name, s.price, r.id, c.name, rs.exTime, rs.version) " +
+            "FROM RentalsServices rs JOIN rs.service s JOIN rs.rental r JOIN r.client c " +
+            "WHERE (:from IS NULL OR rs.exTime >= :from) AND (:to IS NULL OR rs.exTime < :to) " +
+            "ORDER BY rs.exTime, rs.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RentalsServicesRow> streamRowsByExTime(LocalDateTime from, LocalDateTime to);
+
+    // Суммы услуг сразу для пакета аренд, один запрос с группировкой
+    @Query("SELECT new com.example.guestHouse.repository.RentalServicesTotal(rs.rental.id, SUM(s.price)) " +
+            "FROM RentalsServices rs JOIN rs.service s WHERE rs.rental.id IN :rentalIds GROUP BY rs.rental.id")
+    List<RentalServicesTotal> sumServicePricesByRentals(Collection<Long> rentalIds);
 }
@@ -0,0 +1,17 @@
+package com.example.guestHouse.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Строка списка заказанных услуг: услуга, аренда и клиент аренды одной плоской записью
+public record RentalsServicesRow(Long id, Long serviceId, String serviceName, BigDecimal servicePrice,
+                                 Long rentalId, String clientName, LocalDateTime exTime, Long version) {
+
+    public static RentalsServicesRow of(RentalsServices rentalsServices) {
+        Service service = rentalsServices.getService();
+        Rental rental = rentalsServices.getRental();
+        return new RentalsServicesRow(rentalsServices.getId(),
+                service.getId(), service.getName(), service.getPrice(),
+                rental.getId(), rental.getClient().getName(), rentalsServices.getExTime(), rentalsServices.getVersion());
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.guestHouse.repository;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -13,9 +15,17 @@ public class Service {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     private String name;
     private BigDecimal price;
 
+    // Не отдаётся в JSON: списки строятся из проекций, а не обходом графа сущностей
+    @JsonIgnore
     @OneToMany(mappedBy = "service")
     private Set<RentalsServices> rentalsServices = new HashSet<>();
 
@@ -36,6 +46,10 @@ public class Service {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,8 @@
+package com.example.guestHouse.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Заказанная услуга в объёме, нужном агрегатам: дом аренды, время выполнения и текущая цена услуги
+public record ServiceCharge(Long houseId, LocalDateTime exTime, BigDecimal price) {
+}
@@ -1,16 +1,25 @@
 package com.example.guestHouse.repository;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ServiceRepository extends JpaRepository <Service, Long> {
+public interface ServiceRepository extends JpaRepository<Service, Long>, JpaSpecificationExecutor<Service> {
 
+    @Cacheable(cacheNames = CacheConfig.SERVICES_BY_NAME, condition = "#p0 != null")
     @Query(value = "select * from services where name = :name", nativeQuery = true)
     Optional<Service> findByName(String name);
 
+    // Отсоединённая копия из кэша: только для чтения, изменять нужно сущность из findById
+    @Cacheable(CacheConfig.SERVICES)
+    @Query("SELECT s FROM Service s WHERE s.id = :id")
+    Optional<Service> findCachedById(Long id);
+
     @Query(value = "select * from services order by name", nativeQuery = true)
     List<Service> findAllSortedByAlphabet();
 }
@@ -0,0 +1,128 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.repository.House;
+import com.example.guestHouse.repository.HouseDailyStats;
+import com.example.guestHouse.repository.HouseDailyStatsRepository;
+import com.example.guestHouse.repository.HouseRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+// Отчёты по домам из ежедневных агрегатов house_daily_stats, которые поддерживает DailyStatsAggregator
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Service
+public class AnalyticsService {
+
+    private static final int MAX_REPORT_DAYS = 1096;
+
+    private final HouseDailyStatsRepository statsRepository;
+    private final HouseRepository houseRepository;
+
+    public AnalyticsService(HouseDailyStatsRepository statsRepository, HouseRepository houseRepository) {
+        this.statsRepository = statsRepository;
+        this.houseRepository = houseRepository;
+    }
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public static Granularity of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный период группировки: "+value+" (day, week или month)");
+            }
+        }
+
+        // Первый день периода, в который попадает дата; недели начинаются с понедельника
+        LocalDate periodStart(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate nextPeriodStart(LocalDate periodStart) {
+            return switch (this) {
+                case DAY -> periodStart.plusDays(1);
+                case WEEK -> periodStart.plusWeeks(1);
+                case MONTH -> periodStart.plusMonths(1);
+            };
+        }
+    }
+
+    // Показатели каждого дома (или одного houseId) по периодам внутри [from, to]; крайние периоды обрезаются по границам
+    public List<HouseStats> houseStats(LocalDate from, LocalDate to, Granularity granularity, Long houseId) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания не может быть раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_REPORT_DAYS) {
+            throw new IllegalArgumentException("Период отчёта не может превышать "+MAX_REPORT_DAYS+" дней");
+        }
+        List<House> houses;
+        if (houseId != null) {
+            houses = houseRepository.findCachedById(houseId).map(List::of)
+                    .orElseThrow(() -> new IllegalArgumentException("Дома с id "+houseId+" не существует"));
+        } else {
+            houses = houseRepository.findAll().stream().sorted(Comparator.comparing(House::getId)).toList();
+        }
+
+        // Суммы по (дом, начало периода)
+        Map<Long, Map<LocalDate, Totals>> totals = new HashMap<>();
+        for (HouseDailyStats day : statsRepository.findByPeriod(from, to, houseId)) {
+            totals.computeIfAbsent(day.getHouseId(), id -> new HashMap<>())
+                    .computeIfAbsent(granularity.periodStart(day.getStatDate()), start -> new Totals())
+                    .add(day);
+        }
+
+        List<HouseStats> result = new ArrayList<>();
+        for (House house : houses) {
+            Map<LocalDate, Totals> houseTotals = totals.getOrDefault(house.getId(), Map.of());
+            for (LocalDate start = granularity.periodStart(from); !start.isAfter(to); start = granularity.nextPeriodStart(start)) {
+                LocalDate periodStart = start.isBefore(from) ? from : start;
+                LocalDate periodEnd = granularity.nextPeriodStart(start).minusDays(1);
+                if (periodEnd.isAfter(to)) {
+                    periodEnd = to;
+                }
+                int availableDays = (int) ChronoUnit.DAYS.between(periodStart, periodEnd) + 1;
+                result.add(houseTotals.getOrDefault(start, new Totals()).toStats(house, periodStart, periodEnd, availableDays));
+            }
+        }
+        return result;
+    }
+
+    private static final class Totals {
+
+        private int occupiedDays;
+        private BigDecimal roomRevenue = BigDecimal.ZERO;
+        private int serviceCount;
+        private BigDecimal serviceRevenue = BigDecimal.ZERO;
+
+        void add(HouseDailyStats day) {
+            occupiedDays += day.getOccupiedDays();
+            roomRevenue = roomRevenue.add(day.getRoomRevenue());
+            serviceCount += day.getServiceCount();
+            serviceRevenue = serviceRevenue.add(day.getServiceRevenue());
+        }
+
+        HouseStats toStats(House house, LocalDate periodStart, LocalDate periodEnd, int availableDays) {
+            BigDecimal available = BigDecimal.valueOf(availableDays);
+            BigDecimal occupied = BigDecimal.valueOf(occupiedDays);
+            return new HouseStats(house.getId(), house.getName(), periodStart, periodEnd, availableDays, occupiedDays,
+                    occupied.divide(available, 4, RoundingMode.HALF_UP),
+                    roomRevenue,
+                    occupiedDays == 0 ? BigDecimal.ZERO : roomRevenue.divide(occupied, 2, RoundingMode.HALF_UP),
+                    roomRevenue.divide(available, 2, RoundingMode.HALF_UP),
+                    serviceCount, serviceRevenue);
+        }
+    }
+}
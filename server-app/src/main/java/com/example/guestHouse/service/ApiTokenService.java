@@ -0,0 +1,105 @@
+package com.example.guestHouse.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+// Токены для /api/**: имя пользователя, роли и срок действия, подписанные HMAC-SHA256.
+// Проверяются локально без сессии и без обращения к БД, поэтому смена ролей вступает в силу после истечения ttl
+@Service
+@ConditionalOnProperty(prefix = "guesthouse.api-token", name = "enabled", havingValue = "true")
+public class ApiTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    public ApiTokenService(ObjectMapper objectMapper,
+                           @Value("${guesthouse.api-token.secret:}") String secret,
+                           @Value("${guesthouse.api-token.ttl:15m}") Duration ttl) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("guesthouse.api-token.secret должен содержать не меньше "
+                    + MIN_SECRET_BYTES + " байт");
+        }
+        this.objectMapper = objectMapper;
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    public record ApiToken(String token, Instant expiresAt) {
+    }
+
+    private record Claims(String sub, List<String> roles, long exp) {
+    }
+
+    public ApiToken issue(UserDetails user) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        Claims claims = new Claims(user.getUsername(),
+                user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                expiresAt.getEpochSecond());
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return new ApiToken(payload + "." + ENCODER.encodeToString(sign(payload)), expiresAt);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сформировать токен", e);
+        }
+    }
+
+    // Пустой результат для поддельного, повреждённого или просроченного токена
+    public Optional<Authentication> authenticate(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            Claims claims = objectMapper.readValue(DECODER.decode(payload), Claims.class);
+            if (claims.exp() <= Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            List<SimpleGrantedAuthority> authorities = claims.roles().stream().map(SimpleGrantedAuthority::new).toList();
+            return Optional.of(UsernamePasswordAuthenticationToken.authenticated(claims.sub(), null, authorities));
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            // Mac не потокобезопасен, поэтому создаётся на каждую подпись
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
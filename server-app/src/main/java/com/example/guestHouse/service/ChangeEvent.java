@@ -0,0 +1,10 @@
+package com.example.guestHouse.service;
+
+// Изменение одной строки таблицы на странице: upsert - строка row добавлена или изменена, delete - удалена,
+// reset - строки entity (или всех таблиц, если entity == null) изменились массово и список нужно перечитать
+public record ChangeEvent(long sequence, String entity, String action, Long id, Object row) {
+
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+    public static final String RESET = "reset";
+}
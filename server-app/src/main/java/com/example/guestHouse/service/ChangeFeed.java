@@ -0,0 +1,218 @@
+package com.example.guestHouse.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Поток изменений строк для открытых страниц: сервисы публикуют изменения после коммита, страницы получают их по SSE
+// и правят свои таблицы на месте вместо полного перечитывания списка.
+// У событий сквозной номер (id события SSE); последние history-size событий хранятся, и переподключившийся клиент
+// дочитывает пропущенное по Last-Event-ID, а если история уже ушла дальше - получает reset и перечитывает список.
+// У каждого подписчика своя очередь на buffer-size событий и свой поток отправки: публикация никогда не ждёт медленного
+// клиента, переполненный подписчик отключается и при переподключении догоняет по истории
+@Component
+public class ChangeFeed implements MeterBinder, DisposableBean {
+
+    public static final String METRIC = "guesthouse.events";
+
+    public static final String RENTAL = "rental";
+    public static final String RENTAL_SERVICE = "rentalService";
+    public static final String HOUSE = "house";
+    public static final String CLIENT = "client";
+    public static final String SERVICE = "service";
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private final int historySize;
+    private final int bufferSize;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    // history и sequence изменяются только под монитором this
+    private final ArrayDeque<ChangeEvent> history = new ArrayDeque<>();
+    // Номера продолжаются после перезапуска: id, выданный прежним процессом, всегда меньше новых и получает reset
+    private long sequence = System.currentTimeMillis() * 1000;
+
+    public ChangeFeed(@Value("${guesthouse.events.history-size:1024}") int historySize,
+                      @Value("${guesthouse.events.buffer-size:256}") int bufferSize,
+                      @Value("${guesthouse.events.max-subscribers:200}") int maxSubscribers,
+                      @Value("${guesthouse.events.heartbeat:15s}") Duration heartbeat,
+                      @Value("${guesthouse.events.timeout:30m}") Duration timeout) {
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        AtomicInteger counter = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "change-feed-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Строка собирается после коммита, когда у сущности уже новая версия
+    public void publishUpsert(String entity, Long id, Supplier<?> row) {
+        AfterCommit.run(() -> {
+            Object value;
+            try {
+                value = row.get();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось собрать строку {} {} для потока изменений: {}", entity, id, e.getMessage());
+                publish(entity, ChangeEvent.RESET, null, null);
+                return;
+            }
+            publish(entity, ChangeEvent.UPSERT, id, value);
+        });
+    }
+
+    public void publishDelete(String entity, Long id) {
+        AfterCommit.run(() -> publish(entity, ChangeEvent.DELETE, id, null));
+    }
+
+    // Массовое изменение, например пересчёт стоимости аренд после смены цены дома
+    public void publishReset(String entity) {
+        AfterCommit.run(() -> publish(entity, ChangeEvent.RESET, null, null));
+    }
+
+    public synchronized long currentSequence() {
+        return sequence;
+    }
+
+    // lastEventId - номер последнего полученного события; null - только новые события
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        synchronized (this) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        try {
+            senders.execute(subscriber);
+        } catch (RejectedExecutionException e) {
+            subscribers.remove(subscriber);
+            throw new IllegalStateException("Слишком много подключений к потоку изменений, повторите попытку позже");
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    private synchronized void publish(String entity, String action, Long id, Object row) {
+        ChangeEvent event = new ChangeEvent(++sequence, entity, action, id, row);
+        history.addLast(event);
+        if (history.size() > historySize) {
+            history.removeFirst();
+        }
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        if (lastEventId == sequence) {
+            return;
+        }
+        ChangeEvent oldest = history.peekFirst();
+        if (lastEventId > sequence || oldest == null || oldest.sequence() > lastEventId + 1
+                || sequence - lastEventId > bufferSize) {
+            // Пропущенного уже нет в истории: клиент перечитывает все таблицы и продолжает с текущего номера
+            subscriber.offer(new ChangeEvent(sequence, null, ChangeEvent.RESET, null, null));
+            return;
+        }
+        for (ChangeEvent event : history) {
+            if (event.sequence() > lastEventId) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC + ".subscribers", subscribers, Set::size)
+                .description("Open change stream connections")
+                .register(registry);
+        FunctionCounter.builder(METRIC + ".dropped", dropped, AtomicLong::get)
+                .description("Subscribers disconnected because their buffer overflowed")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(ChangeEvent event) {
+            if (!closed && !queue.offer(event)) {
+                dropped.incrementAndGet();
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    ChangeEvent event = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (closed) {
+                        break;
+                    }
+                    if (event == null) {
+                        // Комментарий держит соединение открытым через прокси и обнаруживает ушедших клиентов
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.sequence()))
+                                .name("change")
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился или ответ уже завершён
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                closed = true;
+                subscribers.remove(this);
+                emitter.complete();
+            }
+        }
+    }
+}
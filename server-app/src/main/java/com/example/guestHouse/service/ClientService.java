@@ -1,49 +1,104 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.configurations.RetryOnConflict;
 import com.example.guestHouse.repository.Client;
 import com.example.guestHouse.repository.ClientRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class ClientService {
 
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("name", String.class, "phoneNumber", String.class);
+
     private final ClientRepository clientRepository;
+    private final ChangeFeed changeFeed;
+    // Поле выбора клиента в формах аренды ищет по этому индексу вместо загрузки всего списка с телефонами
+    private final SuggestIndex suggestIndex = new SuggestIndex();
 
-    public ClientService(ClientRepository clientRepository) {
+    public ClientService(ClientRepository clientRepository, ChangeFeed changeFeed) {
         this.clientRepository = clientRepository;
+        this.changeFeed = changeFeed;
     }
 
     public List<Client> findAll() {
         return clientRepository.findAllSortedByAlphabet();
     }
 
+    // Клиенты, у которых слова имени начинаются со слов запроса или номер телефона содержит набранные цифры
+    public List<Suggestion> suggest(String query, Integer limit) {
+        return suggestIndex.search(query, SuggestIndex.limit(limit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSuggestIndex() {
+        suggestIndex.rebuild(clientRepository.findAllSortedByAlphabet().stream()
+                .map(ClientService::toSuggestion)
+                .toList());
+    }
+
+    private static Suggestion toSuggestion(Client client) {
+        return new Suggestion(client.getId(), client.getName(), client.getPhoneNumber());
+    }
+
+    public KeysetPage<Client> findPage(String cursor, Integer size, String sort, Sort.Direction direction) {
+        ScrollCursor position = ScrollCursor.of(cursor, sort, direction, SORT_KEYS);
+        return position.page(clientRepository, ScrollCursor.pageSize(size));
+    }
+
+    // Сбрасываем закэшированное отсутствие записи с этим ключом
+    @CacheEvict(cacheNames = CacheConfig.CLIENTS_BY_PHONE, key = "#client.phoneNumber", condition = "#client.phoneNumber != null")
     public Client create(Client client) {
         Optional<Client> optionalClient = clientRepository.findByPhoneNumber(client.getPhoneNumber());
         if(optionalClient.isPresent()) {
             throw new IllegalArgumentException("Клиент с таким номером телефона уже существует");
         }
-        return clientRepository.save(client);
+        Client saved = clientRepository.save(client);
+        changeFeed.publishUpsert(ChangeFeed.CLIENT, saved.getId(), () -> saved);
+        AfterCommit.run(() -> suggestIndex.put(toSuggestion(saved)));
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CLIENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CLIENTS_BY_PHONE, allEntries = true)
+    })
     public void delete(Long id){
         Optional<Client> optionalClient = clientRepository.findById(id);
         if (optionalClient.isEmpty()) {
            throw new IllegalArgumentException("Клиента с id "+id+" не существует");
         }
         clientRepository.deleteById(id);
+        changeFeed.publishDelete(ChangeFeed.CLIENT, id);
+        AfterCommit.run(() -> suggestIndex.remove(id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CLIENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CLIENTS_BY_PHONE, allEntries = true)
+    })
+    @RetryOnConflict
     @Transactional
-    public void update(Long id, String name, String phoneNumber) {
+    public void update(Long id, String name, String phoneNumber, Long version) {
         Optional<Client> optionalClient = clientRepository.findById(id);
         if (optionalClient.isEmpty()) {
             throw new IllegalArgumentException("Клиента с id "+id+" не существует");
         }
         Client client = optionalClient.get();
+        EntityVersions.check(version, client.getVersion());
         if (phoneNumber != null && !phoneNumber.equals(client.getPhoneNumber())){
             Optional<Client> foundByPhoneNumber = clientRepository.findByPhoneNumber(phoneNumber);
             if(foundByPhoneNumber.isPresent()) {
@@ -54,6 +109,11 @@ public class ClientService {
 
         if (name != null && !name.equals(client.getName())) {
             client.setName(name);
+            // Имя клиента показывается в строках аренд и заказанных услуг
+            changeFeed.publishReset(ChangeFeed.RENTAL);
+            changeFeed.publishReset(ChangeFeed.RENTAL_SERVICE);
         }
+        changeFeed.publishUpsert(ChangeFeed.CLIENT, id, () -> client);
+        AfterCommit.run(() -> suggestIndex.put(toSuggestion(client)));
     }
 }
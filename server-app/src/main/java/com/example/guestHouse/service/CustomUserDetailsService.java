@@ -1,13 +1,19 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.repository.User;
 import com.example.guestHouse.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -15,8 +21,27 @@ public class CustomUserDetailsService implements UserDetailsService {
         this.userRepository = userRepository;
     }
 
+    // Пользователь с ролями читается из БД при каждом входе, поэтому кэшируется; отсутствие пользователя не кэшируется
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS, key = "#username")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username);
+        User user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("Пользователь не найден: " + username);
+        }
+        return user;
+    }
+
+    // Вызывается после успешного входа, если хэш пароля устарел: нет префикса {bcrypt} или стоимость ниже настроенной
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, key = "#user.username")
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User stored = userRepository.findByUsername(user.getUsername());
+        if (stored == null) {
+            throw new UsernameNotFoundException("Пользователь не найден: " + user.getUsername());
+        }
+        stored.setPassword(newPassword);
+        return userRepository.save(stored);
     }
 }
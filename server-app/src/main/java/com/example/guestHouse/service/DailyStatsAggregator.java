@@ -0,0 +1,200 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.HouseDailyStatsRepository;
+import com.example.guestHouse.repository.RentalCharge;
+import com.example.guestHouse.repository.ServiceCharge;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+// Ежедневные агрегаты домов (house_daily_stats): занятость, выручка за проживание (RentalCharge) и за услуги.
+// Поддерживаются приращениями в той же транзакции, что и изменения аренд, заказанных услуг и цен услуг,
+// поэтому отчёты читают готовые строки по дням, а не rentals и rental_services
+@Component
+public class DailyStatsAggregator {
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO house_daily_stats " +
+            "(house_id, stat_date, occupied_days, room_revenue, service_count, service_revenue) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (house_id, stat_date) DO UPDATE SET " +
+            "occupied_days = house_daily_stats.occupied_days + EXCLUDED.occupied_days, " +
+            "room_revenue = house_daily_stats.room_revenue + EXCLUDED.room_revenue, " +
+            "service_count = house_daily_stats.service_count + EXCLUDED.service_count, " +
+            "service_revenue = house_daily_stats.service_revenue + EXCLUDED.service_revenue";
+
+    // Для остальных БД (H2 в тестах) - стандартный MERGE
+    private static final String MERGE_UPSERT = "MERGE INTO house_daily_stats t USING (VALUES (" +
+            "CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS INTEGER), CAST(? AS NUMERIC(19, 2)), CAST(? AS INTEGER), CAST(? AS NUMERIC(19, 2)))) " +
+            "AS s(house_id, stat_date, occupied_days, room_revenue, service_count, service_revenue) " +
+            "ON t.house_id = s.house_id AND t.stat_date = s.stat_date " +
+            "WHEN MATCHED THEN UPDATE SET occupied_days = t.occupied_days + s.occupied_days, " +
+            "room_revenue = t.room_revenue + s.room_revenue, service_count = t.service_count + s.service_count, " +
+            "service_revenue = t.service_revenue + s.service_revenue " +
+            "WHEN NOT MATCHED THEN INSERT (house_id, stat_date, occupied_days, room_revenue, service_count, service_revenue) " +
+            "VALUES (s.house_id, s.stat_date, s.occupied_days, s.room_revenue, s.service_count, s.service_revenue)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HouseDailyStatsRepository statsRepository;
+    private volatile String upsertSql;
+
+    public DailyStatsAggregator(JdbcTemplate jdbcTemplate, HouseDailyStatsRepository statsRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsRepository = statsRepository;
+    }
+
+    // Набор приращений по дням; строки пишутся в порядке (дом, дата), чтобы параллельные транзакции
+    // блокировали их в одном порядке
+    public static final class Changes {
+
+        private final Map<Day, Delta> deltas = new TreeMap<>(Comparator.comparing(Day::houseId).thenComparing(Day::date));
+
+        record Day(Long houseId, LocalDate date) {
+        }
+
+        record Delta(int occupiedDays, BigDecimal roomRevenue, int serviceCount, BigDecimal serviceRevenue) {
+
+            Delta plus(Delta other) {
+                return new Delta(occupiedDays + other.occupiedDays, roomRevenue.add(other.roomRevenue),
+                        serviceCount + other.serviceCount, serviceRevenue.add(other.serviceRevenue));
+            }
+
+            boolean isZero() {
+                return occupiedDays == 0 && serviceCount == 0
+                        && roomRevenue.signum() == 0 && serviceRevenue.signum() == 0;
+            }
+        }
+
+        // Аренда занимает ночи с startDate до endDate (день выезда не занят) - так же, как их считает
+        // PricingEngine.roomPrice, в том числе одна ночь при выезде в день заезда. Стоимость проживания делится между
+        // ночами поровну, остаток от округления приходится на последнюю. sign = 1 - добавить аренду, -1 - убрать
+        public Changes rental(Long houseId, LocalDate startDate, LocalDate endDate, BigDecimal summaryPrice, int sign) {
+            if (houseId == null || startDate == null || endDate == null || endDate.isBefore(startDate)) {
+                return this;
+            }
+            BigDecimal price = summaryPrice != null ? summaryPrice : BigDecimal.ZERO;
+            long days = Math.max(1, ChronoUnit.DAYS.between(startDate, endDate));
+            BigDecimal share = price.divide(BigDecimal.valueOf(days), 2, RoundingMode.DOWN);
+            BigDecimal last = price.subtract(share.multiply(BigDecimal.valueOf(days - 1)));
+            for (long i = 0; i < days; i++) {
+                BigDecimal revenue = i == days - 1 ? last : share;
+                add(houseId, startDate.plusDays(i), new Delta(sign, revenue.multiply(BigDecimal.valueOf(sign)), 0, BigDecimal.ZERO));
+            }
+            return this;
+        }
+
+        public Changes rental(RentalCharge charge, int sign) {
+            return rental(charge.houseId(), charge.startDate(), charge.endDate(), charge.roomPrice(), sign);
+        }
+
+        public Changes service(Long houseId, LocalDate date, BigDecimal price, int sign) {
+            if (houseId == null || date == null) {
+                return this;
+            }
+            BigDecimal revenue = price != null ? price.multiply(BigDecimal.valueOf(sign)) : BigDecimal.ZERO;
+            add(houseId, date, new Delta(0, BigDecimal.ZERO, sign, revenue));
+            return this;
+        }
+
+        // Изменение выручки без изменения числа услуг (смена цены)
+        Changes serviceRevenue(Long houseId, LocalDate date, BigDecimal revenue) {
+            add(houseId, date, new Delta(0, BigDecimal.ZERO, 0, revenue));
+            return this;
+        }
+
+        private void add(Long houseId, LocalDate date, Delta delta) {
+            deltas.merge(new Day(houseId, date), delta, Delta::plus);
+        }
+
+        Map<Day, Delta> deltas() {
+            return deltas;
+        }
+    }
+
+    // Записывает приращения одним пакетом; вызывается внутри транзакции изменения данных
+    public void apply(Changes changes) {
+        List<Object[]> rows = new ArrayList<>();
+        changes.deltas().forEach((day, delta) -> {
+            if (!delta.isZero()) {
+                rows.add(new Object[]{day.houseId(), Date.valueOf(day.date()), delta.occupiedDays(), delta.roomRevenue(),
+                        delta.serviceCount(), delta.serviceRevenue()});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertSql(), rows);
+        }
+    }
+
+    // Выручка услуг аренды, переходящая вместе с ней из одного дома в другой
+    public Changes moveRentalServices(Changes changes, Long rentalId, Long fromHouseId, Long toHouseId) {
+        for (ServiceCharge charge : statsRepository.findServiceChargesByRental(rentalId)) {
+            if (charge.exTime() != null) {
+                changes.service(fromHouseId, charge.exTime().toLocalDate(), charge.price(), -1);
+                changes.service(toHouseId, charge.exTime().toLocalDate(), charge.price(), 1);
+            }
+        }
+        return changes;
+    }
+
+    // Смена цены услуги: выручка всех дней, где она оказывалась, сдвигается на разницу цен
+    public void applyServicePriceChange(Long serviceId, BigDecimal oldPrice, BigDecimal newPrice) {
+        BigDecimal difference = (newPrice != null ? newPrice : BigDecimal.ZERO)
+                .subtract(oldPrice != null ? oldPrice : BigDecimal.ZERO);
+        if (difference.signum() == 0) {
+            return;
+        }
+        Changes changes = new Changes();
+        try (Stream<ServiceCharge> charges = statsRepository.streamServiceChargesByService(serviceId)) {
+            charges.filter(charge -> charge.exTime() != null)
+                    .forEach(charge -> changes.serviceRevenue(charge.houseId(), charge.exTime().toLocalDate(), difference));
+        }
+        apply(changes);
+    }
+
+    // Полный пересчёт из rentals и rental_services: при первом запуске с уже накопленными данными и по запросу администратора
+    @Transactional
+    public void rebuild() {
+        Changes changes = new Changes();
+        try (Stream<RentalCharge> rentals = statsRepository.streamRentalCharges()) {
+            rentals.forEach(rental -> changes.rental(rental, 1));
+        }
+        try (Stream<ServiceCharge> services = statsRepository.streamServiceCharges()) {
+            services.filter(service -> service.exTime() != null)
+                    .forEach(service -> changes.service(service.houseId(), service.exTime().toLocalDate(), service.price(), 1));
+        }
+        jdbcTemplate.update("DELETE FROM house_daily_stats");
+        apply(changes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (statsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = "PostgreSQL".equals(database) ? POSTGRES_UPSERT : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
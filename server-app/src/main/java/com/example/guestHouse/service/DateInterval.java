@@ -0,0 +1,6 @@
+package com.example.guestHouse.service;
+
+import java.time.LocalDate;
+
+public record DateInterval(LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,15 @@
+package com.example.guestHouse.service;
+
+// Проверка версии, с которой клиент открыл запись на редактирование. Версия необязательна:
+// без неё изменение защищено только от параллельных транзакций, а не от правки по устаревшим данным
+public final class EntityVersions {
+
+    private EntityVersions() {
+    }
+
+    public static void check(Long expected, Long actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new IllegalStateException("Запись изменена другим пользователем, обновите страницу");
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.BookedPeriod;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Занятые периоды домов в памяти: для каждого дома - массивы периодов, отсортированные по дате начала.
+// Целиком перестраивается из БД только при старте и по запросу администратора,
+// в остальное время поддерживается RentalService при создании, изменении и удалении аренд.
+// Рядом с периодами у каждого дома хранится битовая карта занятых дней для поиска свободных домов.
+@Component
+public class HouseAvailabilityIndex {
+
+    private final Map<Long, HouseBookings> bookingsByHouse = new ConcurrentHashMap<>();
+    // Изменяется только внутри synchronized-методов
+    private final Map<Long, Long> houseByRental = new HashMap<>();
+    private volatile Map<Long, List<Map<String, LocalDate>>> bookedPeriodsView;
+
+    public synchronized void rebuild(Collection<BookedPeriod> periods) {
+        Map<Long, List<BookedPeriod>> grouped = new HashMap<>();
+        for (BookedPeriod period : periods) {
+            grouped.computeIfAbsent(period.houseId(), houseId -> new ArrayList<>()).add(period);
+        }
+
+        bookingsByHouse.clear();
+        houseByRental.clear();
+        grouped.forEach((houseId, housePeriods) -> {
+            bookingsByHouse.put(houseId, HouseBookings.of(housePeriods));
+            housePeriods.forEach(period -> houseByRental.put(period.rentalId(), houseId));
+        });
+        bookedPeriodsView = null;
+    }
+
+    public synchronized void put(Long rentalId, Long houseId, LocalDate startDate, LocalDate endDate) {
+        removeInternal(rentalId);
+        bookingsByHouse.merge(houseId,
+                HouseBookings.of(List.of(new BookedPeriod(rentalId, houseId, startDate, endDate))),
+                (current, added) -> current.with(rentalId, startDate, endDate));
+        houseByRental.put(rentalId, houseId);
+        bookedPeriodsView = null;
+    }
+
+    public synchronized void remove(Long rentalId) {
+        removeInternal(rentalId);
+        bookedPeriodsView = null;
+    }
+
+    // Возвращает id аренды, пересекающейся с периодом [startDate, endDate] (границы включительно), или null
+    public Long findOverlap(Long houseId, LocalDate startDate, LocalDate endDate, Long excludedRentalId) {
+        HouseBookings bookings = bookingsByHouse.get(houseId);
+        if (bookings == null) {
+            return null;
+        }
+        long overlappingId = bookings.findOverlap(startDate.toEpochDay(), endDate.toEpochDay(),
+                excludedRentalId == null ? Long.MIN_VALUE : excludedRentalId);
+        return overlappingId < 0 ? null : overlappingId;
+    }
+
+    // Дом свободен все дни [from, to] включительно; дом без аренд свободен всегда
+    public boolean isFree(Long houseId, LocalDate from, LocalDate to) {
+        HouseBookings bookings = bookingsByHouse.get(houseId);
+        return bookings == null || bookings.occupancy.isFree(from.toEpochDay(), to.toEpochDay());
+    }
+
+    // Занятые клетки планировщика для домов houseIds в окне [from, to]: по дому, затем по дате начала
+    public List<PlannerRun> findRuns(List<Long> houseIds, LocalDate from, LocalDate to) {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        List<PlannerRun> runs = new ArrayList<>();
+        for (Long houseId : houseIds) {
+            HouseBookings bookings = bookingsByHouse.get(houseId);
+            if (bookings != null) {
+                bookings.collectRuns(houseId, start, end, runs);
+            }
+        }
+        return runs;
+    }
+
+    // Занятые интервалы дома внутри окна [from, to]: слитые между собой и обрезанные по границам окна
+    public List<DateInterval> findBookedIntervals(Long houseId, LocalDate from, LocalDate to, Long excludedRentalId) {
+        HouseBookings bookings = bookingsByHouse.get(houseId);
+        if (bookings == null) {
+            return List.of();
+        }
+        return bookings.findMergedIntervals(from.toEpochDay(), to.toEpochDay(),
+                excludedRentalId == null ? Long.MIN_VALUE : excludedRentalId);
+    }
+
+    public List<BookedPeriod> findPeriods(Long houseId) {
+        HouseBookings bookings = bookingsByHouse.get(houseId);
+        return bookings == null ? List.of() : bookings.toPeriods(houseId);
+    }
+
+    // Формат {houseId: [{startDate, endDate}, ...]}, пересобирается только после изменений
+    public Map<Long, List<Map<String, LocalDate>>> getBookedPeriodsByHouse() {
+        Map<Long, List<Map<String, LocalDate>>> view = bookedPeriodsView;
+        if (view == null) {
+            view = buildView();
+        }
+        return view;
+    }
+
+    private synchronized Map<Long, List<Map<String, LocalDate>>> buildView() {
+        if (bookedPeriodsView != null) {
+            return bookedPeriodsView;
+        }
+        Map<Long, List<Map<String, LocalDate>>> view = new HashMap<>();
+        bookingsByHouse.forEach((houseId, bookings) -> view.put(houseId, bookings.toPeriods(houseId).stream()
+                .map(period -> Map.of(
+                        "startDate", period.startDate(),
+                        "endDate", period.endDate()))
+                .toList()));
+        bookedPeriodsView = Collections.unmodifiableMap(view);
+        return bookedPeriodsView;
+    }
+
+    private void removeInternal(Long rentalId) {
+        Long houseId = houseByRental.remove(rentalId);
+        if (houseId == null) {
+            return;
+        }
+        bookingsByHouse.computeIfPresent(houseId, (id, bookings) -> bookings.without(rentalId));
+    }
+
+    // Неизменяемый набор периодов одного дома; даты хранятся как epochDay.
+    // maxEnds[i] - наибольшая дата окончания среди периодов 0..i, что позволяет искать пересечения
+    // бинарным поиском даже при наличии старых пересекающихся аренд. occupancy - те же периоды по дням
+    static final class HouseBookings {
+
+        private final long[] rentalIds;
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnds;
+        private final OccupancyBitmap occupancy;
+
+        private HouseBookings(long[] rentalIds, long[] starts, long[] ends, OccupancyBitmap occupancy) {
+            this.rentalIds = rentalIds;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            this.occupancy = occupancy;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        private HouseBookings(HouseBookings bookings, OccupancyBitmap occupancy) {
+            this.rentalIds = bookings.rentalIds;
+            this.starts = bookings.starts;
+            this.ends = bookings.ends;
+            this.maxEnds = bookings.maxEnds;
+            this.occupancy = occupancy;
+        }
+
+        static HouseBookings of(List<BookedPeriod> periods) {
+            List<BookedPeriod> sorted = new ArrayList<>(periods);
+            sorted.sort(Comparator.comparing(BookedPeriod::startDate).thenComparing(BookedPeriod::rentalId));
+            int size = sorted.size();
+            long[] rentalIds = new long[size];
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            for (int i = 0; i < size; i++) {
+                BookedPeriod period = sorted.get(i);
+                rentalIds[i] = period.rentalId();
+                starts[i] = period.startDate().toEpochDay();
+                ends[i] = period.endDate().toEpochDay();
+            }
+            return new HouseBookings(rentalIds, starts, ends, OccupancyBitmap.of(starts, ends));
+        }
+
+        int size() {
+            return rentalIds.length;
+        }
+
+        long findOverlap(long start, long end, long excludedRentalId) {
+            // Последний период, начинающийся не позже end
+            int i = lastStartingBefore(end + 1);
+            while (i >= 0 && maxEnds[i] >= start) {
+                if (ends[i] >= start && rentalIds[i] != excludedRentalId) {
+                    return rentalIds[i];
+                }
+                i--;
+            }
+            return -1;
+        }
+
+        List<DateInterval> findMergedIntervals(long from, long to, long excludedRentalId) {
+            // Собираем пересекающие окно периоды в обратном порядке дат начала
+            List<long[]> found = new ArrayList<>();
+            int i = lastStartingBefore(to + 1);
+            while (i >= 0 && maxEnds[i] >= from) {
+                if (ends[i] >= from && rentalIds[i] != excludedRentalId) {
+                    found.add(new long[]{Math.max(starts[i], from), Math.min(ends[i], to)});
+                }
+                i--;
+            }
+
+            List<DateInterval> merged = new ArrayList<>();
+            long currentStart = 0;
+            long currentEnd = Long.MIN_VALUE;
+            for (int j = found.size() - 1; j >= 0; j--) {
+                long[] interval = found.get(j);
+                if (currentEnd != Long.MIN_VALUE && interval[0] <= currentEnd + 1) {
+                    currentEnd = Math.max(currentEnd, interval[1]);
+                    continue;
+                }
+                if (currentEnd != Long.MIN_VALUE) {
+                    merged.add(new DateInterval(LocalDate.ofEpochDay(currentStart), LocalDate.ofEpochDay(currentEnd)));
+                }
+                currentStart = interval[0];
+                currentEnd = interval[1];
+            }
+            if (currentEnd != Long.MIN_VALUE) {
+                merged.add(new DateInterval(LocalDate.ofEpochDay(currentStart), LocalDate.ofEpochDay(currentEnd)));
+            }
+            return merged;
+        }
+
+        // Периоды, пересекающие окно, обрезанные по его границам; пересекающиеся старые аренды не сливаются
+        void collectRuns(Long houseId, long from, long to, List<PlannerRun> runs) {
+            int first = runs.size();
+            int i = lastStartingBefore(to + 1);
+            while (i >= 0 && maxEnds[i] >= from) {
+                if (ends[i] >= from) {
+                    long start = Math.max(starts[i], from);
+                    runs.add(new PlannerRun(houseId, (int) (start - from), (int) (Math.min(ends[i], to) - start + 1), rentalIds[i]));
+                }
+                i--;
+            }
+            Collections.reverse(runs.subList(first, runs.size()));
+        }
+
+        // Индекс последнего периода с началом строго меньше bound, либо -1
+        private int lastStartingBefore(long bound) {
+            int low = 0;
+            int high = size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < bound) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        HouseBookings with(Long rentalId, LocalDate startDate, LocalDate endDate) {
+            long start = startDate.toEpochDay();
+            int position = 0;
+            while (position < size() && (starts[position] < start
+                    || (starts[position] == start && rentalIds[position] < rentalId))) {
+                position++;
+            }
+            int size = size() + 1;
+            long[] newRentalIds = new long[size];
+            long[] newStarts = new long[size];
+            long[] newEnds = new long[size];
+            copyAround(position, newRentalIds, newStarts, newEnds);
+            newRentalIds[position] = rentalId;
+            newStarts[position] = start;
+            newEnds[position] = endDate.toEpochDay();
+            return new HouseBookings(newRentalIds, newStarts, newEnds, occupancy.withDays(start, newEnds[position]));
+        }
+
+        HouseBookings without(Long rentalId) {
+            int position = -1;
+            for (int i = 0; i < size(); i++) {
+                if (rentalIds[i] == rentalId) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return this;
+            }
+            if (size() == 1) {
+                return null;
+            }
+            int size = size() - 1;
+            long[] newRentalIds = new long[size];
+            long[] newStarts = new long[size];
+            long[] newEnds = new long[size];
+            System.arraycopy(rentalIds, 0, newRentalIds, 0, position);
+            System.arraycopy(starts, 0, newStarts, 0, position);
+            System.arraycopy(ends, 0, newEnds, 0, position);
+            System.arraycopy(rentalIds, position + 1, newRentalIds, position, size - position);
+            System.arraycopy(starts, position + 1, newStarts, position, size - position);
+            System.arraycopy(ends, position + 1, newEnds, position, size - position);
+
+            // Дни удалённой аренды освобождаются, кроме покрытых другими (старыми пересекающимися) арендами
+            long start = starts[position];
+            long end = ends[position];
+            HouseBookings remaining = new HouseBookings(newRentalIds, newStarts, newEnds, occupancy.withoutDays(start, end));
+            OccupancyBitmap restored = remaining.occupancy;
+            for (DateInterval interval : remaining.findMergedIntervals(start, end, Long.MIN_VALUE)) {
+                restored = restored.withDays(interval.startDate().toEpochDay(), interval.endDate().toEpochDay());
+            }
+            return restored == remaining.occupancy ? remaining : new HouseBookings(remaining, restored);
+        }
+
+        List<BookedPeriod> toPeriods(Long houseId) {
+            List<BookedPeriod> periods = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                periods.add(new BookedPeriod(rentalIds[i], houseId,
+                        LocalDate.ofEpochDay(starts[i]), LocalDate.ofEpochDay(ends[i])));
+            }
+            return periods;
+        }
+
+        // Копирует текущие массивы, оставляя свободную ячейку на позиции position
+        private void copyAround(int position, long[] newRentalIds, long[] newStarts, long[] newEnds) {
+            System.arraycopy(rentalIds, 0, newRentalIds, 0, position);
+            System.arraycopy(starts, 0, newStarts, 0, position);
+            System.arraycopy(ends, 0, newEnds, 0, position);
+            System.arraycopy(rentalIds, position, newRentalIds, position + 1, size() - position);
+            System.arraycopy(starts, position, newStarts, position + 1, size() - position);
+            System.arraycopy(ends, position, newEnds, position + 1, size() - position);
+        }
+    }
+}
@@ -1,60 +1,143 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.configurations.RetryOnConflict;
 import com.example.guestHouse.repository.House;
 import com.example.guestHouse.repository.HouseRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class HouseService {
 
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("name", String.class, "price", BigDecimal.class);
+    private static final int MAX_SEARCH_WINDOW_DAYS = 732;
+
     private final HouseRepository houseRepository;
+    private final PricingEngine pricingEngine;
+    private final HouseAvailabilityIndex availabilityIndex;
+    private final ChangeFeed changeFeed;
+    private final SuggestIndex suggestIndex = new SuggestIndex();
 
-    public HouseService(HouseRepository houseRepository) {
+    public HouseService(HouseRepository houseRepository, PricingEngine pricingEngine, HouseAvailabilityIndex availabilityIndex,
+                        ChangeFeed changeFeed) {
         this.houseRepository = houseRepository;
+        this.pricingEngine = pricingEngine;
+        this.availabilityIndex = availabilityIndex;
+        this.changeFeed = changeFeed;
     }
 
     public List<House> findAll() {
         return houseRepository.findAllSortedByAlphabet();
     }
 
+    // Дома, свободные все дни [from, to] включительно, по алфавиту. Занятость проверяется по битовым картам
+    // индекса в памяти, из БД читается только справочник домов
+    public List<House> findAvailable(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания не может быть раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_SEARCH_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Период поиска не может превышать "+MAX_SEARCH_WINDOW_DAYS+" дней");
+        }
+        return houseRepository.findAllSortedByAlphabet().stream()
+                .filter(house -> availabilityIndex.isFree(house.getId(), from, to))
+                .toList();
+    }
+
+    // Дома, у которых слова названия начинаются со слов запроса
+    public List<Suggestion> suggest(String query, Integer limit) {
+        return suggestIndex.search(query, SuggestIndex.limit(limit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSuggestIndex() {
+        suggestIndex.rebuild(houseRepository.findAllSortedByAlphabet().stream()
+                .map(HouseService::toSuggestion)
+                .toList());
+    }
+
+    private static Suggestion toSuggestion(House house) {
+        return new Suggestion(house.getId(), house.getName(), null);
+    }
+
+    public KeysetPage<House> findPage(String cursor, Integer size, String sort, Sort.Direction direction) {
+        ScrollCursor position = ScrollCursor.of(cursor, sort, direction, SORT_KEYS);
+        return position.page(houseRepository, ScrollCursor.pageSize(size));
+    }
+
+    // Сбрасываем закэшированное отсутствие записи с этим ключом
+    @CacheEvict(cacheNames = CacheConfig.HOUSES_BY_NAME, key = "#house.name", condition = "#house.name != null")
     public House create(House house) {
         Optional<House> optionalHouse = houseRepository.findByName(house.getName());
         if (optionalHouse.isPresent()) {
             throw new IllegalArgumentException("Дом с таким именем уже существует");
         }
-        return houseRepository.save(house);
+        House saved = houseRepository.save(house);
+        changeFeed.publishUpsert(ChangeFeed.HOUSE, saved.getId(), () -> saved);
+        AfterCommit.run(() -> suggestIndex.put(toSuggestion(saved)));
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.HOUSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.HOUSES_BY_NAME, allEntries = true)
+    })
     public void delete(Long id){
         Optional<House> optionalHouse = houseRepository.findById(id);
         if (optionalHouse.isEmpty()) {
             throw new IllegalArgumentException("Дома с id "+id+" не существует");
         }
         houseRepository.deleteById(id);
+        changeFeed.publishDelete(ChangeFeed.HOUSE, id);
+        AfterCommit.run(() -> suggestIndex.remove(id));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.HOUSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.HOUSES_BY_NAME, allEntries = true)
+    })
+    @RetryOnConflict
     @Transactional
-    public void update(Long id, String name, BigDecimal price) {
+    public void update(Long id, String name, BigDecimal price, Long version) {
         Optional<House> optionalHouse = houseRepository.findById(id);
         if (optionalHouse.isEmpty()) {
             throw new IllegalArgumentException("Дома с id "+id+" не существует");
         }
         House house = optionalHouse.get();
+        EntityVersions.check(version, house.getVersion());
         if (name != null && !name.equals(house.getName())){
             Optional<House> foundByName = houseRepository.findByName(name);
             if(foundByName.isPresent()) {
                 throw new IllegalArgumentException("Дом с таким именем уже существует");
             }
             house.setName(name);
+            // Название дома показывается в строках аренд
+            changeFeed.publishReset(ChangeFeed.RENTAL);
         }
 
         if (price != null && !price.equals(house.getPrice())) {
             house.setPrice(price);
+            // Аренды дома ссылаются на этот же экземпляр House и пересчитываются по новой цене
+            pricingEngine.repriceHouse(id);
+            changeFeed.publishReset(ChangeFeed.RENTAL);
         }
+        changeFeed.publishUpsert(ChangeFeed.HOUSE, id, () -> house);
+        AfterCommit.run(() -> suggestIndex.put(toSuggestion(house)));
     }
 }
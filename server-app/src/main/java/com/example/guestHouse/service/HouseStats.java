@@ -0,0 +1,12 @@
+package com.example.guestHouse.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Показатели дома за период отчёта: загрузка, средняя цена занятого дня (ADR),
+// выручка на доступный день (RevPAR) и выручка услуг
+public record HouseStats(Long houseId, String houseName, LocalDate periodStart, LocalDate periodEnd,
+                         int availableDays, int occupiedDays, BigDecimal occupancyRate,
+                         BigDecimal roomRevenue, BigDecimal adr, BigDecimal revpar,
+                         int serviceCount, BigDecimal serviceRevenue) {
+}
@@ -0,0 +1,7 @@
+package com.example.guestHouse.service;
+
+import java.util.List;
+
+// Страница keyset-пагинации: next - непрозрачный токен продолжения, null на последней странице
+public record KeysetPage<T>(List<T> items, String next) {
+}
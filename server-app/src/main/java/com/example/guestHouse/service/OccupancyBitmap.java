@@ -0,0 +1,92 @@
+package com.example.guestHouse.service;
+
+import java.util.Arrays;
+
+// Занятость одного дома по дням: бит на день, слово long на 64 дня подряд. Слова выровнены по epochDay / 64,
+// массив покрывает только дни между первой и последней арендой дома. Проверка периода - маски на двух крайних
+// словах и сравнение с нулём слов между ними. Неизменяемый: изменения возвращают копию
+final class OccupancyBitmap {
+
+    static final OccupancyBitmap EMPTY = new OccupancyBitmap(0, new long[0]);
+
+    private final long firstWord;
+    private final long[] words;
+
+    private OccupancyBitmap(long firstWord, long[] words) {
+        this.firstWord = firstWord;
+        this.words = words;
+    }
+
+    // Битовая карта набора периодов [starts[i], ends[i]] за один проход
+    static OccupancyBitmap of(long[] starts, long[] ends) {
+        if (starts.length == 0) {
+            return EMPTY;
+        }
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < starts.length; i++) {
+            first = Math.min(first, starts[i]);
+            last = Math.max(last, ends[i]);
+        }
+        long firstWord = word(first);
+        long[] words = new long[(int) (word(last) - firstWord + 1)];
+        for (int i = 0; i < starts.length; i++) {
+            fill(words, firstWord, starts[i], ends[i], true);
+        }
+        return new OccupancyBitmap(firstWord, words);
+    }
+
+    boolean isFree(long from, long to) {
+        long fromWord = Math.max(word(from), firstWord);
+        long toWord = Math.min(word(to), firstWord + words.length - 1);
+        for (long w = fromWord; w <= toWord; w++) {
+            if ((words[(int) (w - firstWord)] & mask(w, from, to)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    OccupancyBitmap withDays(long start, long end) {
+        if (words.length == 0) {
+            return of(new long[]{start}, new long[]{end});
+        }
+        long newFirstWord = Math.min(firstWord, word(start));
+        long newLastWord = Math.max(firstWord + words.length - 1, word(end));
+        long[] newWords = new long[(int) (newLastWord - newFirstWord + 1)];
+        System.arraycopy(words, 0, newWords, (int) (firstWord - newFirstWord), words.length);
+        fill(newWords, newFirstWord, start, end, true);
+        return new OccupancyBitmap(newFirstWord, newWords);
+    }
+
+    // Дни снимаются без учёта других аренд: пересекающиеся периоды HouseBookings возвращает следом
+    OccupancyBitmap withoutDays(long start, long end) {
+        long[] newWords = Arrays.copyOf(words, words.length);
+        fill(newWords, firstWord, Math.max(start, firstWord * 64), Math.min(end, (firstWord + words.length) * 64 - 1), false);
+        return new OccupancyBitmap(firstWord, newWords);
+    }
+
+    private static void fill(long[] words, long firstWord, long start, long end, boolean occupied) {
+        for (long w = word(start); w <= word(end); w++) {
+            int index = (int) (w - firstWord);
+            long mask = mask(w, start, end);
+            words[index] = occupied ? words[index] | mask : words[index] & ~mask;
+        }
+    }
+
+    // Биты слова w, попадающие в [start, end]
+    private static long mask(long w, long start, long end) {
+        long mask = -1L;
+        if (w == word(start)) {
+            mask &= -1L << Math.floorMod(start, 64);
+        }
+        if (w == word(end)) {
+            mask &= -1L >>> (63 - Math.floorMod(end, 64));
+        }
+        return mask;
+    }
+
+    private static long word(long day) {
+        return Math.floorDiv(day, 64);
+    }
+}
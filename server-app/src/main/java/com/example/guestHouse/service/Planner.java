@@ -0,0 +1,10 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.House;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Сетка "дома × дни" в сжатом виде: строки - houses по алфавиту, занятые клетки - runs, остальные свободны
+public record Planner(LocalDate from, int days, List<House> houses, List<PlannerRun> runs) {
+}
@@ -0,0 +1,5 @@
+package com.example.guestHouse.service;
+
+// Непрерывный отрезок клеток планировщика, занятых одной арендой: offset - номер дня от начала окна
+public record PlannerRun(Long houseId, int offset, int length, Long rentalId) {
+}
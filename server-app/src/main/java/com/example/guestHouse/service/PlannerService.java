@@ -0,0 +1,41 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.repository.House;
+import com.example.guestHouse.repository.HouseRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+// Планировщик для стойки регистрации: занятость всех домов по дням окна. Аренды из БД не читаются -
+// клетки строятся одним проходом по индексу занятости, запрос к БД только за справочником домов
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Service
+public class PlannerService {
+
+    private static final int MAX_PLANNER_DAYS = 366;
+
+    private final HouseRepository houseRepository;
+    private final HouseAvailabilityIndex availabilityIndex;
+
+    public PlannerService(HouseRepository houseRepository, HouseAvailabilityIndex availabilityIndex) {
+        this.houseRepository = houseRepository;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    public Planner planner(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания не может быть раньше даты начала");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_PLANNER_DAYS) {
+            throw new IllegalArgumentException("Окно планировщика не может превышать "+MAX_PLANNER_DAYS+" дней");
+        }
+        List<House> houses = houseRepository.findAllSortedByAlphabet();
+        List<PlannerRun> runs = availabilityIndex.findRuns(houses.stream().map(House::getId).toList(), from, to);
+        return new Planner(from, (int) days, houses, runs);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.Rental;
+import com.example.guestHouse.repository.RentalCharge;
+import com.example.guestHouse.repository.RentalRepository;
+import com.example.guestHouse.repository.RentalServicesTotal;
+import com.example.guestHouse.repository.RentalsServicesRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Стоимость аренды: проживание (цена дома за ночь, не меньше одной ночи, со скидкой в процентах) плюс услуги по текущим ценам.
+// Пересчитываются только затронутые аренды: при изменении дат, дома или скидки, заказанных услуг, цены дома или услуги.
+// Вместе со стоимостью сдвигается выручка за проживание в агрегатах отчётов
+@Component
+public class PricingEngine {
+
+    public static final BigDecimal MAX_DISCOUNT = BigDecimal.valueOf(100);
+
+    private static final int REPRICE_CHUNK = 500;
+
+    private final RentalRepository rentalRepository;
+    private final RentalsServicesRepository rentalsServicesRepository;
+    private final DailyStatsAggregator dailyStats;
+    private final EntityManager entityManager;
+
+    public PricingEngine(RentalRepository rentalRepository, RentalsServicesRepository rentalsServicesRepository,
+                         DailyStatsAggregator dailyStats, EntityManager entityManager) {
+        this.rentalRepository = rentalRepository;
+        this.rentalsServicesRepository = rentalsServicesRepository;
+        this.dailyStats = dailyStats;
+        this.entityManager = entityManager;
+    }
+
+    public static BigDecimal roomPrice(BigDecimal housePrice, LocalDate startDate, LocalDate endDate, BigDecimal discount) {
+        if (housePrice == null || startDate == null || endDate == null) {
+            return BigDecimal.ZERO;
+        }
+        long nights = Math.max(1, ChronoUnit.DAYS.between(startDate, endDate));
+        BigDecimal price = housePrice.multiply(BigDecimal.valueOf(nights));
+        if (discount != null && discount.signum() != 0) {
+            price = price.multiply(MAX_DISCOUNT.subtract(discount)).divide(MAX_DISCOUNT, 2, RoundingMode.HALF_UP);
+        }
+        return price.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static void checkDiscount(BigDecimal discount) {
+        if (discount != null && (discount.signum() < 0 || discount.compareTo(MAX_DISCOUNT) > 0)) {
+            throw new IllegalArgumentException("Скидка должна быть от 0 до 100%");
+        }
+    }
+
+    // Пересчёт по уже известной сумме услуг, без обращений к БД
+    public static void price(Rental rental, BigDecimal servicesTotal) {
+        BigDecimal roomPrice = roomPrice(rental.getHouse().getPrice(), rental.getStartDate(), rental.getEndDate(), rental.getDiscount());
+        rental.setRoomPrice(roomPrice);
+        rental.setSummaryPrice(servicesTotal != null ? roomPrice.add(servicesTotal) : roomPrice);
+    }
+
+    // Пересчитывает аренды на месте: суммы услуг читаются одним запросом на весь пакет.
+    // В changes добавляется разница выручки за проживание при текущих доме и датах аренд
+    public DailyStatsAggregator.Changes reprice(Collection<Rental> rentals, DailyStatsAggregator.Changes changes) {
+        Map<Long, BigDecimal> servicesTotals = servicesTotals(rentals);
+        for (Rental rental : rentals) {
+            changes.rental(RentalCharge.of(rental), -1);
+            price(rental, servicesTotals.get(rental.getId()));
+            changes.rental(RentalCharge.of(rental), 1);
+        }
+        return changes;
+    }
+
+    // Пересчёт с записью агрегатов, вызывается внутри транзакции изменения
+    public void repriceAndApply(Collection<Rental> rentals) {
+        if (!rentals.isEmpty()) {
+            dailyStats.apply(reprice(rentals, new DailyStatsAggregator.Changes()));
+        }
+    }
+
+    public void repriceHouse(Long houseId) {
+        repriceAndApply(rentalRepository.findAllByHouseId(houseId));
+    }
+
+    public void repriceService(Long serviceId) {
+        repriceAndApply(rentalRepository.findAllByServiceId(serviceId));
+    }
+
+    // Пересчёт всех аренд в одной транзакции пакетами по REPRICE_CHUNK: после каждого пакета изменения
+    // сбрасываются в БД батчами и контекст очищается, чтобы память не росла с числом аренд
+    @Transactional
+    public int repriceAll() {
+        List<Long> ids = rentalRepository.findAllIds();
+        for (int from = 0; from < ids.size(); from += REPRICE_CHUNK) {
+            repriceAndApply(rentalRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + REPRICE_CHUNK))));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return ids.size();
+    }
+
+    private Map<Long, BigDecimal> servicesTotals(Collection<Rental> rentals) {
+        Set<Long> ids = new HashSet<>();
+        for (Rental rental : rentals) {
+            if (rental.getId() != null) {
+                ids.add(rental.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        for (RentalServicesTotal total : rentalsServicesRepository.sumServicePricesByRentals(ids)) {
+            totals.put(total.rentalId(), total.total());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.guestHouse.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Строка пакетного импорта аренд; стоимость считает PricingEngine, скидка в процентах необязательна
+public record RentalImport(Long houseId, Long clientId, LocalDate startDate, LocalDate endDate, BigDecimal discount) {
+}
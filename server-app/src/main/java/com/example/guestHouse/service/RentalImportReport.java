@@ -0,0 +1,6 @@
+package com.example.guestHouse.service;
+
+import java.util.List;
+
+public record RentalImportReport(int created, int rejected, List<RentalImportResult> rows) {
+}
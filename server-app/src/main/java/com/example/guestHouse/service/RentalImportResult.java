@@ -0,0 +1,13 @@
+package com.example.guestHouse.service;
+
+// Результат по одной строке импорта: id созданной аренды либо причина отказа
+public record RentalImportResult(int row, Long rentalId, String error) {
+
+    static RentalImportResult created(int row, Long rentalId) {
+        return new RentalImportResult(row, rentalId, null);
+    }
+
+    static RentalImportResult rejected(int row, String error) {
+        return new RentalImportResult(row, null, error);
+    }
+}
@@ -1,88 +1,259 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.configurations.RetryOnConflict;
 import com.example.guestHouse.repository.*;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class RentalService {
 
+    private static final int MAX_AVAILABILITY_WINDOW_DAYS = 732;
+    private static final int MAX_IMPORT_ROWS = 5000;
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("startDate", LocalDate.class, "endDate", LocalDate.class);
+
     private final RentalRepository rentalRepository;
     private final HouseRepository houseRepository;
     private final ClientRepository clientRepository;
+    private final HouseAvailabilityIndex availabilityIndex;
+    private final DailyStatsAggregator dailyStats;
+    private final PricingEngine pricingEngine;
+    private final ChangeFeed changeFeed;
 
-    public RentalService(RentalRepository rentalRepository, HouseRepository houseRepository, ClientRepository clientRepository) {
+    public RentalService(RentalRepository rentalRepository, HouseRepository houseRepository, ClientRepository clientRepository,
+                         HouseAvailabilityIndex availabilityIndex, DailyStatsAggregator dailyStats, PricingEngine pricingEngine,
+                         ChangeFeed changeFeed) {
         this.rentalRepository = rentalRepository;
         this.houseRepository = houseRepository;
         this.clientRepository = clientRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.dailyStats = dailyStats;
+        this.pricingEngine = pricingEngine;
+        this.changeFeed = changeFeed;
+    }
+
+    // Строки передаются потребителю по мере чтения из БД, поток открыт только внутри транзакции
+    @Transactional
+    public void forEachRow(Consumer<RentalRow> consumer) {
+        try (Stream<RentalRow> rows = rentalRepository.streamAllRowsSortedByClients()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Transactional
+    public void exportRows(LocalDate from, LocalDate to, Consumer<RentalRow> consumer) {
+        checkExportPeriod(from, to);
+        try (Stream<RentalRow> rows = rentalRepository.streamRowsByPeriod(from, to)) {
+            rows.forEach(consumer);
+        }
     }
 
-    public List<Rental> findAll() {
-        return rentalRepository.findAllSortedByClients();
+    public KeysetPage<RentalRow> findPage(String cursor, Integer size, String sort, Sort.Direction direction) {
+        ScrollCursor position = ScrollCursor.of(cursor, sort, direction, SORT_KEYS);
+        return position.page(rentalRepository, ScrollCursor.pageSize(size), RentalRow::of, RentalRepository.PAGE_FETCH);
     }
 
+    @Transactional
     public Rental create(Rental rental) {
-        Optional<House> optionalHouse = houseRepository.findById(rental.getHouse().getId());
+        Optional<House> optionalHouse = houseRepository.findCachedById(rental.getHouse().getId());
         if (optionalHouse.isEmpty()) {
             throw new IllegalStateException("Дома с id "+rental.getHouse().getId()+" не существует");
         }
-        Optional<Client> optionalClient = clientRepository.findById(rental.getClient().getId());
+        Optional<Client> optionalClient = clientRepository.findCachedById(rental.getClient().getId());
         if (optionalClient.isEmpty()) {
             throw new IllegalStateException("Клиента с id "+rental.getClient().getId()+" не существует");
         }
+        checkPeriod(rental.getHouse().getId(), rental.getStartDate(), rental.getEndDate(), null);
+        PricingEngine.checkDiscount(rental.getDiscount());
+
+        rental.setHouse(optionalHouse.get());
+        rental.setClient(optionalClient.get());
+        // Услуг у новой аренды ещё нет
+        PricingEngine.price(rental, null);
+        Rental saved = flushChecked(rentalRepository.save(rental));
+        dailyStats.apply(new DailyStatsAggregator.Changes().rental(RentalCharge.of(saved), 1));
+        indexAfterCommit(saved);
+        changeFeed.publishUpsert(ChangeFeed.RENTAL, saved.getId(), () -> RentalRow.of(saved));
+        return saved;
+    }
+
+    // Пакетный импорт: дома и клиенты проверяются одним IN-запросом каждый, пересечения - по индексу занятости
+    // и между строками самого пакета, корректные строки вставляются батчами. Ошибочные строки не прерывают импорт
+    @Transactional
+    public RentalImportReport createBatch(List<RentalImport> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Пустой список аренд");
+        }
+        if (rows.size() > MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException("За один запрос можно импортировать не более "+MAX_IMPORT_ROWS+" аренд");
+        }
 
-        return rentalRepository.save(rental);
+        Map<Long, House> houses = new HashMap<>();
+        houseRepository.findAllById(idsOf(rows, RentalImport::houseId)).forEach(house -> houses.put(house.getId(), house));
+        Map<Long, Client> clients = new HashMap<>();
+        clientRepository.findAllById(idsOf(rows, RentalImport::clientId)).forEach(client -> clients.put(client.getId(), client));
+
+        // Отдельный индекс для уже принятых строк пакета, id в нём - номер строки + 1
+        HouseAvailabilityIndex accepted = new HouseAvailabilityIndex();
+        RentalImportResult[] results = new RentalImportResult[rows.size()];
+        List<Rental> rentals = new ArrayList<>();
+        List<Integer> rentalRows = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            RentalImport row = rows.get(i);
+            String error = validateImport(row, houses, clients, accepted);
+            if (error != null) {
+                results[i] = RentalImportResult.rejected(i, error);
+                continue;
+            }
+            accepted.put(i + 1L, row.houseId(), row.startDate(), row.endDate());
+            Rental rental = new Rental(null, houses.get(row.houseId()), clients.get(row.clientId()),
+                    row.startDate(), row.endDate(), null);
+            rental.setDiscount(row.discount());
+            PricingEngine.price(rental, null);
+            rentals.add(rental);
+            rentalRows.add(i);
+        }
+
+        List<Rental> saved = flushChecked(rentalRepository.saveAll(rentals));
+        DailyStatsAggregator.Changes changes = new DailyStatsAggregator.Changes();
+        for (int i = 0; i < saved.size(); i++) {
+            Rental rental = saved.get(i);
+            results[rentalRows.get(i)] = RentalImportResult.created(rentalRows.get(i), rental.getId());
+            changes.rental(RentalCharge.of(rental), 1);
+            indexAfterCommit(rental);
+        }
+        dailyStats.apply(changes);
+        if (!saved.isEmpty()) {
+            changeFeed.publishReset(ChangeFeed.RENTAL);
+        }
+        return new RentalImportReport(saved.size(), rows.size() - saved.size(), List.of(results));
+    }
+
+    private String validateImport(RentalImport row, Map<Long, House> houses, Map<Long, Client> clients,
+                                  HouseAvailabilityIndex accepted) {
+        if (row == null || row.houseId() == null || row.clientId() == null) {
+            return "Не указан дом или клиент";
+        }
+        if (!houses.containsKey(row.houseId())) {
+            return "Дома с id "+row.houseId()+" не существует";
+        }
+        if (!clients.containsKey(row.clientId())) {
+            return "Клиента с id "+row.clientId()+" не существует";
+        }
+        try {
+            checkPeriod(row.houseId(), row.startDate(), row.endDate(), null);
+            PricingEngine.checkDiscount(row.discount());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return e.getMessage();
+        }
+        Long overlappingRow = accepted.findOverlap(row.houseId(), row.startDate(), row.endDate(), null);
+        if (overlappingRow != null) {
+            return "Пересекается со строкой "+(overlappingRow - 1)+" этого же импорта";
+        }
+        return null;
+    }
+
+    private static Set<Long> idsOf(List<RentalImport> rows, Function<RentalImport, Long> id) {
+        Set<Long> ids = new HashSet<>();
+        for (RentalImport row : rows) {
+            if (row != null && id.apply(row) != null) {
+                ids.add(id.apply(row));
+            }
+        }
+        return ids;
     }
 
+    @Transactional
     public void delete(Long id){
         Optional<Rental> optionalRental = rentalRepository.findById(id);
         if (optionalRental.isEmpty()) {
             throw new IllegalArgumentException("Аренды с id "+id+" не существует");
         }
+        Rental rental = optionalRental.get();
 
         rentalRepository.deleteById(id);
+        dailyStats.apply(new DailyStatsAggregator.Changes().rental(RentalCharge.of(rental), -1));
+        AfterCommit.run(() -> availabilityIndex.remove(id));
+        changeFeed.publishDelete(ChangeFeed.RENTAL, id);
     }
 
     public Map<Long, List<Map<String, LocalDate>>> getBookedPeriodsByHouse() {
-        List<Rental> allRentals = rentalRepository.findAll();
+        return availabilityIndex.getBookedPeriodsByHouse();
+    }
+
+    public List<DateInterval> getBookedIntervals(Long houseId, LocalDate from, LocalDate to, Long excludedRentalId) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания не может быть раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_AVAILABILITY_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Окно календаря не может превышать "+MAX_AVAILABILITY_WINDOW_DAYS+" дней");
+        }
+        return availabilityIndex.findBookedIntervals(houseId, from, to, excludedRentalId);
+    }
 
-        return allRentals.stream()
-                .collect(Collectors.groupingBy(
-                        rental -> rental.getHouse().getId(),
-                        Collectors.mapping(
-                                rental -> Map.of(
-                                        "startDate", rental.getStartDate(),
-                                        "endDate", rental.getEndDate()
-                                ),
-                                Collectors.toList()
-                        )
-                ));
+    // Полная перестройка индекса занятости: при старте приложения и по запросу администратора
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAvailabilityIndex() {
+        availabilityIndex.rebuild(rentalRepository.findAllBookedPeriods());
     }
 
+    @RetryOnConflict
+    @Transactional
     public void set_discount(BigDecimal value, Long id) {
-        rentalRepository.setDiscount(value, id);
+        if (value == null) {
+            throw new IllegalArgumentException("Не указана скидка");
+        }
+        PricingEngine.checkDiscount(value);
+        Optional<Rental> optionalRental = rentalRepository.findById(id);
+        if (optionalRental.isEmpty()) {
+            throw new IllegalArgumentException("Аренды с id "+id+" не существует");
+        }
+        Rental rental = optionalRental.get();
+        rental.setDiscount(value);
+        pricingEngine.repriceAndApply(List.of(rental));
+        changeFeed.publishUpsert(ChangeFeed.RENTAL, id, () -> RentalRow.of(rental));
     }
 
+    @RetryOnConflict
     @Transactional
-    public void update(Long id, House house, Client client, LocalDate startDate, LocalDate endDate) {
+    public void update(Long id, House house, Client client, LocalDate startDate, LocalDate endDate, Long version) {
         Optional<Rental> optionalRental = rentalRepository.findById(id);
         if (optionalRental.isEmpty()) {
             throw new IllegalArgumentException("Аренда с id "+id+" не существует");
         }
         Rental rental = optionalRental.get();
+        EntityVersions.check(version, rental.getVersion());
+        RentalCharge before = RentalCharge.of(rental);
+
+        if (house != null || startDate != null || endDate != null) {
+            checkPeriod(house != null ? house.getId() : rental.getHouse().getId(),
+                    startDate != null ? startDate : rental.getStartDate(),
+                    endDate != null ? endDate : rental.getEndDate(),
+                    id);
+        }
 
         if (house != null && !house.equals(rental.getHouse())) {
             rental.setHouse(house);
         }
         if (client != null && !client.equals(rental.getClient())) {
             rental.setClient(client);
+            // Имя клиента аренды показывается и в строках заказанных услуг
+            changeFeed.publishReset(ChangeFeed.RENTAL_SERVICE);
         }
         if (startDate != null && !startDate.equals(rental.getStartDate())) {
             rental.setStartDate(startDate);
@@ -90,5 +261,62 @@ public class RentalService {
         if (endDate != null && !endDate.equals(rental.getEndDate())) {
             rental.setEndDate(endDate);
         }
+
+        Long newHouseId = rental.getHouse().getId();
+        if (!before.houseId().equals(newHouseId) || !Objects.equals(before.startDate(), rental.getStartDate())
+                || !Objects.equals(before.endDate(), rental.getEndDate())) {
+            // Прежняя выручка переносится на новые дни, затем PricingEngine добавляет разницу после пересчёта цены
+            DailyStatsAggregator.Changes changes = new DailyStatsAggregator.Changes()
+                    .rental(before, -1)
+                    .rental(RentalCharge.of(rental), 1);
+            if (!before.houseId().equals(newHouseId)) {
+                dailyStats.moveRentalServices(changes, id, before.houseId(), newHouseId);
+            }
+            dailyStats.apply(pricingEngine.reprice(List.of(rental), changes));
+        }
+        flushChecked(rental);
+        indexAfterCommit(rental);
+        changeFeed.publishUpsert(ChangeFeed.RENTAL, id, () -> RentalRow.of(rental));
+    }
+
+    public static void checkExportPeriod(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания выгрузки не может быть раньше даты начала");
+        }
+    }
+
+    private void checkPeriod(Long houseId, LocalDate startDate, LocalDate endDate, Long rentalId) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Не указаны даты аренды");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Дата окончания не может быть раньше даты начала");
+        }
+        Long overlappingId = availabilityIndex.findOverlap(houseId, startDate, endDate, rentalId);
+        if (overlappingId != null) {
+            throw new IllegalStateException("Дом уже забронирован на выбранные даты (аренда с id "+overlappingId+")");
+        }
+    }
+
+    // Изменения аренд сразу отправляются в БД: пересечение, которое индекс не увидел из-за параллельной транзакции,
+    // отклоняет ограничение исключения, и оно возвращается клиенту как 409, а конфликт версий - повторяется
+    private <T> T flushChecked(T saved) {
+        try {
+            rentalRepository.flush();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            if (String.valueOf(e.getMostSpecificCause().getMessage()).contains(Rental.NO_OVERLAP_CONSTRAINT)) {
+                throw new IllegalStateException("Дом уже забронирован на выбранные даты");
+            }
+            throw e;
+        }
+    }
+
+    private void indexAfterCommit(Rental rental) {
+        Long rentalId = rental.getId();
+        Long houseId = rental.getHouse().getId();
+        LocalDate startDate = rental.getStartDate();
+        LocalDate endDate = rental.getEndDate();
+        AfterCommit.run(() -> availabilityIndex.put(rentalId, houseId, startDate, endDate));
     }
 }
@@ -1,31 +1,74 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.configurations.RetryOnConflict;
 import com.example.guestHouse.repository.*;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class RentalsServicesService {
+
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("exTime", LocalDateTime.class);
+
     private final RentalsServicesRepository rentalsServicesRepository;
     private final ServiceRepository serviceRepository;
     private final RentalRepository rentalRepository;
+    private final DailyStatsAggregator dailyStats;
+    private final PricingEngine pricingEngine;
+    private final ChangeFeed changeFeed;
 
-    public RentalsServicesService(RentalsServicesRepository rentalsServicesRepository, ServiceRepository serviceRepository, RentalRepository rentalRepository) {
+    public RentalsServicesService(RentalsServicesRepository rentalsServicesRepository, ServiceRepository serviceRepository, RentalRepository rentalRepository,
+                                  DailyStatsAggregator dailyStats, PricingEngine pricingEngine, ChangeFeed changeFeed) {
         this.rentalsServicesRepository = rentalsServicesRepository;
         this.serviceRepository = serviceRepository;
         this.rentalRepository = rentalRepository;
+        this.dailyStats = dailyStats;
+        this.pricingEngine = pricingEngine;
+        this.changeFeed = changeFeed;
     }
 
-    public List<RentalsServices> findAll() {
-        return rentalsServicesRepository.findAll();
+    // Строки передаются потребителю по мере чтения из БД, поток открыт только внутри транзакции
+    @Transactional
+    public void forEachRow(Consumer<RentalsServicesRow> consumer) {
+        try (Stream<RentalsServicesRow> rows = rentalsServicesRepository.streamAllRows()) {
+            rows.forEach(consumer);
+        }
     }
 
+    // Услуги, выполненные с from по to включительно
+    @Transactional
+    public void exportRows(LocalDate from, LocalDate to, Consumer<RentalsServicesRow> consumer) {
+        RentalService.checkExportPeriod(from, to);
+        try (Stream<RentalsServicesRow> rows = rentalsServicesRepository.streamRowsByExTime(
+                from == null ? null : from.atStartOfDay(),
+                to == null ? null : to.plusDays(1).atStartOfDay())) {
+            rows.forEach(consumer);
+        }
+    }
+
+    public KeysetPage<RentalsServicesRow> findPage(String cursor, Integer size, String sort, Sort.Direction direction) {
+        ScrollCursor position = ScrollCursor.of(cursor, sort, direction, SORT_KEYS);
+        return position.page(rentalsServicesRepository, ScrollCursor.pageSize(size), RentalsServicesRow::of, RentalsServicesRepository.PAGE_FETCH);
+    }
+
+    @Transactional
     public RentalsServices create(RentalsServices rentalsServices) {
-        Optional<com.example.guestHouse.repository.Service> optionalService = serviceRepository.findById(rentalsServices.getService().getId());
+        Optional<com.example.guestHouse.repository.Service> optionalService = serviceRepository.findCachedById(rentalsServices.getService().getId());
         if (optionalService.isEmpty()) {
             throw new IllegalStateException("Услуги с id "+rentalsServices.getService().getId()+" не существует");
         }
@@ -36,25 +79,41 @@ public class RentalsServicesService {
 
         //Возможно следует добавить проверку на наличие записи с такими же данными
 
-        return rentalsServicesRepository.save(rentalsServices);
+        rentalsServices.setService(optionalService.get());
+        rentalsServices.setRental(optionalRental.get());
+        RentalsServices saved = rentalsServicesRepository.save(rentalsServices);
+        dailyStats.apply(pricingEngine.reprice(List.of(saved.getRental()), charge(new DailyStatsAggregator.Changes(), saved, 1)));
+        changeFeed.publishUpsert(ChangeFeed.RENTAL_SERVICE, saved.getId(), () -> RentalsServicesRow.of(saved));
+        publishRentals(List.of(saved.getRental()));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id){
         Optional<RentalsServices> optionalRentalsServices = rentalsServicesRepository.findById(id);
         if (optionalRentalsServices.isEmpty()) {
             throw new IllegalArgumentException("Заказанной услуги с id "+id+" не существует");
         }
 
+        RentalsServices rentalsServices = optionalRentalsServices.get();
         rentalsServicesRepository.deleteById(id);
+        dailyStats.apply(pricingEngine.reprice(List.of(rentalsServices.getRental()),
+                charge(new DailyStatsAggregator.Changes(), rentalsServices, -1)));
+        changeFeed.publishDelete(ChangeFeed.RENTAL_SERVICE, id);
+        publishRentals(List.of(rentalsServices.getRental()));
     }
 
+    @RetryOnConflict
     @Transactional
-    public void update(Long id, com.example.guestHouse.repository.Service service, Rental rental, LocalDateTime exTime) {
+    public void update(Long id, com.example.guestHouse.repository.Service service, Rental rental, LocalDateTime exTime, Long version) {
         Optional<RentalsServices> optionalRentalsServices = rentalsServicesRepository.findById(id);
         if (optionalRentalsServices.isEmpty()) {
             throw new IllegalArgumentException("Заказанной услуги с id "+id+" не существует");
         }
         RentalsServices rentalsServices = optionalRentalsServices.get();
+        EntityVersions.check(version, rentalsServices.getVersion());
+        Rental oldRental = rentalsServices.getRental();
+        DailyStatsAggregator.Changes changes = charge(new DailyStatsAggregator.Changes(), rentalsServices, -1);
 
         //Возможно следует добавить проверку на наличие записи с такими же данными
 
@@ -67,5 +126,23 @@ public class RentalsServicesService {
         if (exTime != null && !exTime.equals(rentalsServices.getExTime())) {
             rentalsServices.setExTime(exTime);
         }
+        // Если ничего не изменилось, приращения взаимно сокращаются и не записываются.
+        // Стоимость пересчитывается у прежней и новой аренды, если услуга перенесена в другую
+        Set<Rental> rentals = new LinkedHashSet<>(List.of(oldRental, rentalsServices.getRental()));
+        dailyStats.apply(pricingEngine.reprice(rentals, charge(changes, rentalsServices, 1)));
+        changeFeed.publishUpsert(ChangeFeed.RENTAL_SERVICE, id, () -> RentalsServicesRow.of(rentalsServices));
+        publishRentals(rentals);
+    }
+
+    // У аренд с изменившимся набором услуг меняется стоимость в списке аренд
+    private void publishRentals(Collection<Rental> rentals) {
+        rentals.forEach(rental -> changeFeed.publishUpsert(ChangeFeed.RENTAL, rental.getId(), () -> RentalRow.of(rental)));
+    }
+
+    // Выручка услуги относится к дому аренды и дню выполнения
+    private static DailyStatsAggregator.Changes charge(DailyStatsAggregator.Changes changes, RentalsServices rentalsServices, int sign) {
+        return changes.service(rentalsServices.getRental().getHouse().getId(),
+                rentalsServices.getExTime() != null ? rentalsServices.getExTime().toLocalDate() : null,
+                rentalsServices.getService().getPrice(), sign);
     }
 }
@@ -0,0 +1,196 @@
+package com.example.guestHouse.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+// Позиция keyset-пагинации. Ключ сортировки всегда дополняется id, чтобы порядок был однозначным.
+// Токен продолжения - base64url от JSON с ключом сортировки, направлением и значениями последней строки.
+// Условие keyset-запроса не сравнивает null, поэтому строки с пустым ключом сортировки листаются отдельно, только по id:
+// при ASC после остальных строк, при DESC перед ними (как null в PostgreSQL). В токене такой строки ключ сортировки - null
+public final class ScrollCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ID = "id";
+
+    private final String sortKey;
+    private final Sort.Direction direction;
+    private final Map<String, Object> keys;
+
+    private ScrollCursor(String sortKey, Sort.Direction direction, Map<String, Object> keys) {
+        this.sortKey = sortKey;
+        this.direction = direction;
+        this.keys = keys;
+    }
+
+    // Позиция из токена продолжения, либо первая страница с указанной сортировкой
+    public static ScrollCursor of(String token, String sortKey, Sort.Direction direction,
+                                  Map<String, Class<?>> sortKeys) {
+        if (token != null && !token.isBlank()) {
+            return decode(token, sortKeys);
+        }
+        if (!sortKeys.containsKey(sortKey)) {
+            throw new IllegalArgumentException("Сортировка по полю "+sortKey+" не поддерживается");
+        }
+        return new ScrollCursor(sortKey, direction == null ? Sort.Direction.ASC : direction, null);
+    }
+
+    public static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до "+MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    public <T> KeysetPage<T> page(JpaSpecificationExecutor<T> repository, int size) {
+        return page(repository, size, Function.identity());
+    }
+
+    // Страница из строк репозитория; fetch - связи, загружаемые тем же запросом
+    public <T, R> KeysetPage<R> page(JpaSpecificationExecutor<T> repository, int size, Function<T, R> mapper,
+                                     String... fetch) {
+        boolean nullsFirst = direction.isDescending();
+        boolean inNulls = keys == null ? nullsFirst : keys.get(sortKey) == null;
+        Window<T> window = scroll(repository, inNulls, position(), size, fetch);
+        List<T> items = new ArrayList<>(window.getContent());
+        Window<T> last = window;
+        boolean hasNext = window.hasNext();
+
+        // Первая часть закончилась - страница дополняется началом второй
+        if (!hasNext && inNulls == nullsFirst) {
+            if (items.size() < size) {
+                Window<T> rest = scroll(repository, !inNulls, ScrollPosition.keyset(), size - items.size(), fetch);
+                items.addAll(rest.getContent());
+                last = rest.isEmpty() ? window : rest;
+                hasNext = rest.hasNext();
+            } else {
+                hasNext = repository.exists(segment(!inNulls, new String[0]));
+            }
+        }
+
+        List<R> mapped = items.stream().map(mapper).toList();
+        if (!hasNext || items.isEmpty()) {
+            return new KeysetPage<>(mapped, null);
+        }
+        KeysetScrollPosition position = (KeysetScrollPosition) last.positionAt(last.size() - 1);
+        return new KeysetPage<>(mapped, token(position.getKeys()));
+    }
+
+    Sort sort() {
+        return Sort.by(direction, sortKey).and(Sort.by(direction, ID));
+    }
+
+    ScrollPosition position() {
+        if (keys == null) {
+            return ScrollPosition.keyset();
+        }
+        // Внутри строк с пустым ключом сортировки позиция задаётся одним id
+        return keys.get(sortKey) == null ? ScrollPosition.forward(Map.of(ID, keys.get(ID))) : ScrollPosition.forward(keys);
+    }
+
+    private <T> Window<T> scroll(JpaSpecificationExecutor<T> repository, boolean nulls, ScrollPosition position, int limit,
+                                 String[] fetch) {
+        Sort order = nulls ? Sort.by(direction, ID) : sort();
+        return repository.findBy(segment(nulls, fetch), query -> query.sortBy(order).limit(limit).scroll(position));
+    }
+
+    private <T> Specification<T> segment(boolean nulls, String[] fetch) {
+        return (root, query, builder) -> {
+            // Связи подтягиваются join fetch тем же запросом, а не отдельным запросом на строку
+            Map<String, FetchParent<?, ?>> fetched = new HashMap<>();
+            for (String path : fetch) {
+                int dot = path.lastIndexOf('.');
+                FetchParent<?, ?> parent = dot < 0 ? root : fetched.get(path.substring(0, dot));
+                fetched.put(path, parent.fetch(path.substring(dot + 1), JoinType.LEFT));
+            }
+            return nulls ? builder.isNull(root.get(sortKey)) : builder.isNotNull(root.get(sortKey));
+        };
+    }
+
+    String token(Map<String, ?> lastKeys) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Object sortValue = lastKeys.get(sortKey);
+        values.put(sortKey, sortValue == null ? null : sortValue.toString());
+        values.put(ID, lastKeys.get(ID).toString());
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("s", sortKey);
+        token.put("d", direction.name());
+        token.put("k", values);
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(MAPPER.writeValueAsString(token).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сформировать токен продолжения", e);
+        }
+    }
+
+    private static ScrollCursor decode(String token, Map<String, Class<?>> sortKeys) {
+        Map<?, ?> decoded;
+        try {
+            decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(token), Map.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw invalidToken(e);
+        }
+        if (!(decoded.get("s") instanceof String sortKey) || !sortKeys.containsKey(sortKey)
+                || !(decoded.get("d") instanceof String direction)
+                || !(decoded.get("k") instanceof Map<?, ?> values)
+                || !values.containsKey(sortKey)
+                || values.get(sortKey) != null && !(values.get(sortKey) instanceof String)
+                || !(values.get(ID) instanceof String idValue)) {
+            throw invalidToken(null);
+        }
+
+        try {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortKey, convert((String) values.get(sortKey), sortKeys.get(sortKey)));
+            keys.put(ID, convert(idValue, Long.class));
+            return new ScrollCursor(sortKey, Sort.Direction.valueOf(direction), keys);
+        } catch (RuntimeException e) {
+            throw invalidToken(e);
+        }
+    }
+
+    private static IllegalArgumentException invalidToken(Exception cause) {
+        return new IllegalArgumentException("Некорректный токен продолжения", cause);
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        if (value == null || type == String.class) {
+            return value;
+        }
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        throw new IllegalStateException("Неподдерживаемый тип ключа сортировки: "+type);
+    }
+}
@@ -1,59 +1,105 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.configurations.MetricsConfig;
+import com.example.guestHouse.configurations.RetryOnConflict;
 import com.example.guestHouse.repository.Service;
 import com.example.guestHouse.repository.ServiceRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @org.springframework.stereotype.Service
 public class ServiceService {
 
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("name", String.class, "price", BigDecimal.class);
+
     private final ServiceRepository serviceRepository;
+    private final DailyStatsAggregator dailyStats;
+    private final PricingEngine pricingEngine;
+    private final ChangeFeed changeFeed;
 
-    public ServiceService(ServiceRepository serviceRepository) {
+    public ServiceService(ServiceRepository serviceRepository, DailyStatsAggregator dailyStats, PricingEngine pricingEngine,
+                          ChangeFeed changeFeed) {
         this.serviceRepository = serviceRepository;
+        this.dailyStats = dailyStats;
+        this.pricingEngine = pricingEngine;
+        this.changeFeed = changeFeed;
     }
 
     public List<Service> findAll() {
         return serviceRepository.findAllSortedByAlphabet();
     }
 
+    public KeysetPage<Service> findPage(String cursor, Integer size, String sort, Sort.Direction direction) {
+        ScrollCursor position = ScrollCursor.of(cursor, sort, direction, SORT_KEYS);
+        return position.page(serviceRepository, ScrollCursor.pageSize(size));
+    }
+
+    // Сбрасываем закэшированное отсутствие записи с этим ключом
+    @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_NAME, key = "#service.name", condition = "#service.name != null")
     public Service create(Service service) {
         Optional<Service> optionalService = serviceRepository.findByName(service.getName());
         if (optionalService.isPresent()) {
             throw new IllegalArgumentException("Услуга с таким именем уже существует");
         }
-        return serviceRepository.save(service);
+        Service saved = serviceRepository.save(service);
+        changeFeed.publishUpsert(ChangeFeed.SERVICE, saved.getId(), () -> saved);
+        return saved;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_NAME, allEntries = true)
+    })
     public void delete(Long id){
         Optional<Service> optionalService = serviceRepository.findById(id);
         if (optionalService.isEmpty()) {
             throw new IllegalArgumentException("Услуги с id "+id+" не существует");
         }
         serviceRepository.deleteById(id);
+        changeFeed.publishDelete(ChangeFeed.SERVICE, id);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_NAME, allEntries = true)
+    })
+    @RetryOnConflict
     @Transactional
-    public void update(Long id, String name, BigDecimal price) {
+    public void update(Long id, String name, BigDecimal price, Long version) {
         Optional<Service> optionalService = serviceRepository.findById(id);
         if (optionalService.isEmpty()) {
             throw new IllegalArgumentException("Услуги с id "+id+" не существует");
         }
         Service service = optionalService.get();
+        EntityVersions.check(version, service.getVersion());
         if (name != null && !name.equals(service.getName())){
             Optional<Service> foundByName = serviceRepository.findByName(name);
             if(foundByName.isPresent()) {
                 throw new IllegalArgumentException("Услуга с таким именем уже существует");
             }
             service.setName(name);
+            // Название и цена услуги показываются в строках заказанных услуг
+            changeFeed.publishReset(ChangeFeed.RENTAL_SERVICE);
         }
 
         if (price != null && !price.equals(service.getPrice())) {
+            dailyStats.applyServicePriceChange(id, service.getPrice(), price);
             service.setPrice(price);
+            // Новая цена сбрасывается в БД перед запросом сумм услуг, стоимость аренд пересчитывается одним пакетом
+            pricingEngine.repriceService(id);
+            changeFeed.publishReset(ChangeFeed.RENTAL_SERVICE);
+            changeFeed.publishReset(ChangeFeed.RENTAL);
         }
+        changeFeed.publishUpsert(ChangeFeed.SERVICE, id, () -> service);
     }
 }
@@ -0,0 +1,162 @@
+package com.example.guestHouse.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Подсказки при вводе в памяти. Ключи - слова названия в нижнем регистре и все суффиксы цифр уточнения (телефона),
+// поэтому название находится по началу любого слова, а телефон - по любому фрагменту номера.
+// Ключи лежат в упорядоченной карте, поиск - проход по ключам с нужным префиксом до первых limit подходящих записей.
+// Чтение идёт без блокировок, изменения выполняются под монитором и только после коммита
+public final class SuggestIndex {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    // Отделяет слово от id в ключе: "анна\0" + id сортируется раньше "анна" + любая буква
+    private static final char SEPARATOR = '\u0000';
+
+    // слово + SEPARATOR + id -> id
+    private final ConcurrentSkipListMap<String, Long> keys = new ConcurrentSkipListMap<>();
+    // название + SEPARATOR + id -> id, порядок выдачи для пустого запроса
+    private final ConcurrentSkipListMap<String, Long> names = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Количество подсказок должно быть от 1 до "+MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    public synchronized void rebuild(Collection<Suggestion> suggestions) {
+        keys.clear();
+        names.clear();
+        entries.clear();
+        suggestions.forEach(this::putInternal);
+    }
+
+    public synchronized void put(Suggestion suggestion) {
+        removeInternal(suggestion.id());
+        putInternal(suggestion);
+    }
+
+    public synchronized void remove(Long id) {
+        removeInternal(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Записи, у которых каждое слово запроса - начало какого-то ключа, по алфавиту; пустой запрос - первые по алфавиту
+    public List<Suggestion> search(String query, int limit) {
+        List<String> words = queryWords(query == null ? "" : query);
+        if (words.isEmpty()) {
+            return collect(names.values(), words, limit);
+        }
+        // Самое длинное слово запроса отсекает больше всего лишних ключей, остальные проверяются по записи
+        String longest = Collections.max(words, Comparator.comparingInt(String::length));
+        List<Suggestion> found = collect(keys.subMap(longest, longest + Character.MAX_VALUE).values(), words, limit);
+        found.sort(Comparator.comparing(Suggestion::name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+        return found;
+    }
+
+    private List<Suggestion> collect(Collection<Long> ids, List<String> words, int limit) {
+        Set<Long> seen = new HashSet<>();
+        List<Suggestion> found = new ArrayList<>();
+        for (Long id : ids) {
+            if (found.size() == limit) {
+                break;
+            }
+            // Запись могли удалить или изменить, пока шёл проход по ключам
+            Entry entry = entries.get(id);
+            if (seen.add(id) && entry != null && entry.matches(words)) {
+                found.add(entry.suggestion());
+            }
+        }
+        return found;
+    }
+
+    private void putInternal(Suggestion suggestion) {
+        Long id = suggestion.id();
+        Entry entry = Entry.of(suggestion);
+        entries.put(id, entry);
+        entry.tokens().forEach(token -> keys.put(key(token, id), id));
+        names.put(key(normalize(suggestion.name()), id), id);
+    }
+
+    private void removeInternal(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        entry.tokens().forEach(token -> keys.remove(key(token, id)));
+        names.remove(key(normalize(entry.suggestion().name()), id));
+    }
+
+    // Запрос без букв - это номер телефона: "+7 (916) 123" ищется как один фрагмент "7916123"
+    private static List<String> queryWords(String query) {
+        if (query.codePoints().noneMatch(Character::isLetter)) {
+            String digits = digits(query);
+            return digits.isEmpty() ? List.of() : List.of(digits);
+        }
+        return words(query);
+    }
+
+    private static List<String> words(String text) {
+        return Arrays.stream(normalize(text).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    private static String digits(String text) {
+        return text.replaceAll("\\D", "");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    private static String key(String token, Long id) {
+        return token + SEPARATOR + id;
+    }
+
+    // words - слова названия, digits - цифры уточнения; ключи индекса строятся из них же
+    private record Entry(Suggestion suggestion, String[] words, String digits) {
+
+        static Entry of(Suggestion suggestion) {
+            String digits = suggestion.detail() == null ? "" : SuggestIndex.digits(suggestion.detail());
+            return new Entry(suggestion, SuggestIndex.words(suggestion.name()).toArray(String[]::new), digits);
+        }
+
+        Set<String> tokens() {
+            Set<String> tokens = new HashSet<>(Arrays.asList(words));
+            for (int i = 0; i < digits.length(); i++) {
+                tokens.add(digits.substring(i));
+            }
+            return tokens;
+        }
+
+        boolean matches(List<String> queryWords) {
+            for (String queryWord : queryWords) {
+                if (!matches(queryWord)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matches(String queryWord) {
+            for (String word : words) {
+                if (word.startsWith(queryWord)) {
+                    return true;
+                }
+            }
+            return digits.contains(queryWord);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.guestHouse.service;
+
+// Вариант подсказки при вводе: name - что показать и подставить в поле, detail - уточнение (телефон клиента) или null
+public record Suggestion(Long id, String name, String detail) {
+}
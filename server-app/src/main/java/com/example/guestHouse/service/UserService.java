@@ -1,13 +1,18 @@
 package com.example.guestHouse.service;
 
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.configurations.MetricsConfig;
 import com.example.guestHouse.repository.User;
 import com.example.guestHouse.repository.UserRepository;
 import com.example.guestHouse.repository.enums.Role;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class UserService {
     private final UserRepository userRepository;
@@ -39,6 +44,7 @@ public class UserService {
         return userRepository.findUsernameById(id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, key = "#user.username")
     public void changeUserRole(User user, Role newRole) {
         // Очищаем старые роли и ставим новую
         user.getRoles().clear();
@@ -46,6 +52,7 @@ public class UserService {
         userRepository.save(user);  // Сохраняем изменения в БД
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USER_DETAILS, allEntries = true)
     public void deleteUser(Long id) {
         userRepository.findById(id).ifPresent(user -> userRepository.deleteById(id));
     }
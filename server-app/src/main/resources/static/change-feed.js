@@ -0,0 +1,19 @@
+// Подписка на поток изменений /api/events (SSE).
+// since - номер события, с которым страница отрисована сервером: изменения после него придут первыми.
+// При обрыве EventSource переподключается сам и присылает Last-Event-ID, сервер досылает пропущенное
+// или присылает reset, если пропущено слишком много
+function subscribeChanges(since, onChange) {
+    const source = new EventSource(since ? `/api/events?since=${since}` : '/api/events');
+    source.addEventListener('change', event => onChange(JSON.parse(event.data)));
+    return source;
+}
+
+// Свои изменения страница получает из потока; если он не подключён, список нужно перечитать самой
+function isChangeFeedOpen(source) {
+    return !!source && source.readyState === EventSource.OPEN;
+}
+
+// reset без entity относится ко всем таблицам
+function isResetFor(change, entity) {
+    return change.action === 'reset' && (!change.entity || change.entity === entity);
+}
@@ -1,54 +1,48 @@
 // Глобальные переменные
 let clientIdToDelete = null;
+let nextCursor = null;
+let currentSort = 'name';
+let currentDirection = 'ASC';
 
 // Основные функции
-function loadClients() {
+// Постраничная загрузка: reset - начать заново с первой страницы, иначе догрузить следующую
+async function loadClients(reset = true) {
+    const params = new URLSearchParams({ sort: currentSort, direction: currentDirection });
+    if (!reset && nextCursor) {
+        params.set('cursor', nextCursor);
+    }
+
     try {
-        fetch('/api/clients/show')
-            .then(response => {
-                if (response.ok) {
-                    return response.json();
-                }
-                throw new Error('Ошибка загрузки клиентов');
-            })
-            .then(clients => renderClientsTable(clients))
-            .catch(error => {
-                console.error('Error:', error);
-            });
+        const response = await fetch(`/api/clients/page?${params}`);
+        if (!response.ok) {
+            throw new Error('Ошибка загрузки клиентов');
+        }
+        const page = await response.json();
+
+        if (reset) {
+            document.querySelector('table tbody').innerHTML = '';
+        }
+        page.items.forEach(client => addClientToTable(client));
+        nextCursor = page.next;
+        updateLoadMoreButton();
     } catch (error) {
         console.error('Error:', error);
     }
 }
 
-function renderClientsTable(clients) {
-    const tbody = document.querySelector('table tbody');
-    tbody.innerHTML = ''; // Очищаем таблицу
-
-    clients.forEach(client => {
-        const row = document.createElement('tr');
-        row.setAttribute('data-id', client.id);
-
-        row.innerHTML = `
-            <td>${client.name}</td>
-            <td>${formatPhoneNumber(client.phoneNumber)}</td>
-            <td>
-                <button class="edit-btn"
-                        data-id="${client.id}"
-                        data-name="${client.name}"
-                        data-phone="${client.phoneNumber}"
-                        onclick="openEditModal(this)">
-                    <i class="bi bi-pencil"></i>
-                </button>
-                <button class="delete-btn"
-                        data-id="${client.id}"
-                        onclick="confirmDelete(this)">
-                    <i class="bi bi-trash"></i>
-                </button>
-            </td>
-        `;
-
-        tbody.appendChild(row);
-    });
+function updateLoadMoreButton() {
+    document.getElementById('loadMoreBtn').style.display = nextCursor ? '' : 'none';
+}
+
+// Серверная сортировка по клику на заголовок
+function sortBy(header) {
+    const sort = header.dataset.sort;
+    currentDirection = sort === currentSort && currentDirection === 'ASC' ? 'DESC' : 'ASC';
+    currentSort = sort;
+
+    document.querySelectorAll('th[data-sort]').forEach(th => th.classList.remove('sorted-asc', 'sorted-desc'));
+    header.classList.add(currentDirection === 'ASC' ? 'sorted-asc' : 'sorted-desc');
+    loadClients();
 }
 
 function formatPhoneNumber(phone) {
@@ -222,13 +216,18 @@ function setupEventListeners() {
         }
     });
 
+    // Постраничная загрузка и сортировка
+    document.getElementById('loadMoreBtn').addEventListener('click', () => loadClients(false));
+    document.querySelectorAll('th[data-sort]').forEach(th => th.addEventListener('click', () => sortBy(th)));
+
     // Обработчик клика вне модального окна
     window.addEventListener('click', handleOutsideClick);
 }
 
 // Инициализация
 function initClientsPage() {
-    loadClients();
+    // Первая страница уже отрисована сервером
+    nextCursor = document.querySelector('table').dataset.nextCursor || null;
     setupEventListeners();
     
     // Форматируем номера телефонов при загрузке
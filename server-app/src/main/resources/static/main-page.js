@@ -1,12 +1,10 @@
 // Глобальные переменные
-let bookedDates = {};
 let selectedHouseId = null;
 let startPicker, endPicker;
 
 // Функции для работы с модальными окнами
 function openModal(modalId) {
     document.getElementById(modalId).style.display = 'block';
-    loadRentalFormData();
 
     // При открытии окна добавления — обновляем disable
     if (modalId === 'addRentalModal') {
@@ -34,46 +32,6 @@ function setupModalCloseHandlers() {
     }
 }
 
-// Функция для загрузки клиентов и домов в выпадающие списки
-async function loadRentalFormData() {
-    try {
-        const clientSelect = document.getElementById('addClient');
-        const houseSelect = document.getElementById('addHouse');
-
-        // Очищаем списки
-        clientSelect.innerHTML = '<option value="">Выберите клиента</option>';
-        houseSelect.innerHTML = '<option value="">Выберите дом</option>';
-
-        // Параллельная загрузка клиентов и домов
-        const [clientsResponse, housesResponse] = await Promise.all([
-            fetch('/api/clients/show'),
-            fetch('/api/houses/show')
-        ]);
-
-        const clients = await clientsResponse.json();
-        const houses = await housesResponse.json();
-
-        // Заполняем список клиентов
-        clients.forEach(client => {
-            const option = document.createElement('option');
-            option.value = client.id;
-            option.textContent = client.name;
-            clientSelect.appendChild(option);
-        });
-
-        // Заполняем список домов
-        houses.forEach(house => {
-            const option = document.createElement('option');
-            option.value = house.id;
-            option.textContent = house.name;
-            houseSelect.appendChild(option);
-        });
-    } catch (error) {
-        console.error('Ошибка при загрузке данных:', error);
-        alert('Не удалось загрузить данные');
-    }
-}
-
 // Форматирование даты
 function formatDateLocal(date) {
     if (!date) return '';
@@ -83,33 +41,43 @@ function formatDateLocal(date) {
     return `${year}-${month}-${day}`;
 }
 
-// Обновление заблокированных дат
-function updateDisabledDates() {
+// Загрузка занятых периодов дома только для окна, видимого в календаре (месяц до и два после текущего)
+async function loadBookedRanges(houseId, picker) {
+    const from = new Date(picker.currentYear, picker.currentMonth - 1, 1);
+    const to = new Date(picker.currentYear, picker.currentMonth + 3, 0);
+    const response = await fetch(`/api/rentals/availability?houseId=${houseId}`
+        + `&from=${formatDateLocal(from)}&to=${formatDateLocal(to)}`);
+    if (!response.ok) {
+        throw new Error(await response.text());
+    }
+    const intervals = await response.json();
+    return intervals.map(interval => ({ from: interval.startDate, to: interval.endDate }));
+}
+
+// Обновление заблокированных дат одного календаря
+async function refreshDisabledDates(picker) {
     if (!selectedHouseId) {
         // Если дом не выбран — блокируем все даты
-        startPicker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
-        endPicker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
+        picker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
         return;
     }
 
-    if (!bookedDates[selectedHouseId] || bookedDates[selectedHouseId].length === 0) {
-        // Если для выбранного дома нет забронированных периодов — разблокируем все даты
-        startPicker.set('disable', []);
-        endPicker.set('disable', []);
-        return;
+    const houseId = selectedHouseId;
+    try {
+        const disabledRanges = await loadBookedRanges(houseId, picker);
+        // Ответ мог устареть, если за это время выбрали другой дом
+        if (houseId === selectedHouseId) {
+            picker.set('disable', disabledRanges);
+        }
+    } catch (error) {
+        console.error('Ошибка загрузки занятых дат:', error);
     }
+}
 
-    // Блокируем только занятые периоды для выбранного дома
-    const periods = bookedDates[selectedHouseId];
-    const disabledRanges = periods.map(p => {
-        return {
-            from: p.startDate,
-            to: p.endDate
-        };
-    });
-
-    startPicker.set('disable', disabledRanges);
-    endPicker.set('disable', disabledRanges);
+// Обновление заблокированных дат
+function updateDisabledDates() {
+    refreshDisabledDates(startPicker);
+    refreshDisabledDates(endPicker);
 }
 
 // Инициализация при загрузке страницы
@@ -122,16 +90,24 @@ function initRentalPage() {
         disable: [{ from: "1900-01-01", to: "9999-12-31" }], // Изначально блокируем все
         onChange: function(selectedDates, dateStr) {
             endPicker.set('minDate', dateStr);
-        }
+        },
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); }
     });
 
     endPicker = flatpickr("#addEndDate", {
         dateFormat: "Y-m-d",
         locale: "ru",
         minDate: "today",
-        disable: [{ from: "1900-01-01", to: "9999-12-31" }] // Изначально блокируем все
+        disable: [{ from: "1900-01-01", to: "9999-12-31" }], // Изначально блокируем все
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); }
     });
 
+    // Клиенты и дома подбираются по вводу, а не загружаются списками целиком
+    attachTypeahead(document.getElementById('addClientTypeahead'), '/api/clients/suggest');
+    attachTypeahead(document.getElementById('addHouseTypeahead'), '/api/houses/suggest');
+
     document.getElementById('addHouse').addEventListener('change', function (e) {
         selectedHouseId = e.target.value;
         updateDisabledDates();
@@ -213,7 +189,8 @@ function initRentalPage() {
                 document.getElementById('addRentalForm').reset();
                 alert('Аренда успешно добавлена!');
             } else {
-                alert('Ошибка в введенных данных');
+                // Сервер сам проверяет пересечение с другими арендами и возвращает причину отказа
+                alert('Ошибка: ' + await response.text());
             }
         } catch (error) {
             console.error('Error:', error);
@@ -225,8 +202,4 @@ function initRentalPage() {
 }
 
 // Инициализация после загрузки DOM
-document.addEventListener('DOMContentLoaded', function() {
-    // Получаем данные из Thymeleaf
-    bookedDates = window.bookedPeriods || {};
-    initRentalPage();
-});
\ No newline at end of file
+document.addEventListener('DOMContentLoaded', initRentalPage);
\ No newline at end of file
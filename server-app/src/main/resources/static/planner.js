@@ -0,0 +1,92 @@
+// Инициализация страницы: по умолчанию окно начинается сегодня
+document.addEventListener('DOMContentLoaded', function() {
+    const fromInput = document.getElementById('plannerFrom');
+    fromInput.value = formatDate(new Date());
+
+    document.getElementById('plannerForm').addEventListener('submit', function(e) {
+        e.preventDefault();
+        loadPlanner();
+    });
+    loadPlanner();
+});
+
+function formatDate(date) {
+    const month = String(date.getMonth() + 1).padStart(2, '0');
+    const day = String(date.getDate()).padStart(2, '0');
+    return `${date.getFullYear()}-${month}-${day}`;
+}
+
+async function loadPlanner() {
+    const from = new Date(document.getElementById('plannerFrom').value);
+    const days = parseInt(document.getElementById('plannerDays').value, 10);
+    const to = new Date(from);
+    to.setDate(to.getDate() + days - 1);
+
+    try {
+        const response = await fetch(`/api/planner?from=${formatDate(from)}&to=${formatDate(to)}`);
+        if (!response.ok) {
+            throw new Error(await response.text());
+        }
+        renderPlanner(await response.json());
+    } catch (error) {
+        alert('Ошибка при загрузке планировщика: ' + error.message);
+    }
+}
+
+// Отрезки приходят отсортированными по дому и смещению; каждый становится одной ячейкой с colspan
+function renderPlanner(planner) {
+    const table = document.getElementById('plannerTable');
+    const start = new Date(planner.from);
+
+    const runsByHouse = new Map();
+    planner.runs.forEach(run => {
+        if (!runsByHouse.has(run.houseId)) {
+            runsByHouse.set(run.houseId, []);
+        }
+        runsByHouse.get(run.houseId).push(run);
+    });
+
+    const header = document.createElement('tr');
+    header.appendChild(document.createElement('th'));
+    for (let i = 0; i < planner.days; i++) {
+        const day = new Date(start);
+        day.setDate(day.getDate() + i);
+        const th = document.createElement('th');
+        th.textContent = `${day.getDate()}.${day.getMonth() + 1}`;
+        header.appendChild(th);
+    }
+
+    const rows = [header];
+    planner.houses.forEach(house => {
+        const row = document.createElement('tr');
+        const name = document.createElement('th');
+        name.textContent = house.name;
+        row.appendChild(name);
+
+        let position = 0;
+        (runsByHouse.get(house.id) || []).forEach(run => {
+            // Старые пересекающиеся аренды показываются с первого ещё не занятого дня
+            const offset = Math.max(run.offset, position);
+            const length = run.offset + run.length - offset;
+            if (length <= 0) {
+                return;
+            }
+            for (; position < offset; position++) {
+                row.appendChild(document.createElement('td'));
+            }
+            const cell = document.createElement('td');
+            cell.className = 'planner-booked';
+            cell.colSpan = length;
+            cell.title = `Аренда №${run.rentalId}`;
+            cell.textContent = run.rentalId;
+            row.appendChild(cell);
+            position += length;
+        });
+        for (; position < planner.days; position++) {
+            row.appendChild(document.createElement('td'));
+        }
+        rows.push(row);
+    });
+
+    table.replaceChildren(...rows);
+}
@@ -2,6 +2,10 @@
 
 // Глобальные переменные
 let addExTimePicker, editExTimePicker;
+let nextCursor = null;
+let currentSort = 'exTime';
+let currentDirection = 'DESC';
+let changes = null;
 
 // Форматирование цены (единообразное для всех страниц)
 function formatPrice(price) {
@@ -21,8 +25,12 @@ function initRentalServicesPage() {
     // Настройка обработчиков событий
     setupEventListeners();
 
-    // Загрузка начальных данных
-    loadRentalServices();
+    // Первая страница уже отрисована сервером
+    const table = document.querySelector('table');
+    nextCursor = table.dataset.nextCursor || null;
+
+    // Изменения, сделанные на других рабочих местах, применяются к таблице построчно
+    changes = subscribeChanges(table.dataset.eventSequence, applyRentalServiceChange);
 
     // Форматирование существующих цен в таблице
     formatExistingPrices();
@@ -65,6 +73,10 @@ function setupEventListeners() {
     // Обработчик формы редактирования
     document.getElementById('editRentalServiceForm').addEventListener('submit', handleEditRentalService);
 
+    // Постраничная загрузка и сортировка
+    document.getElementById('loadMoreBtn').addEventListener('click', () => loadRentalServices(false));
+    document.querySelectorAll('th[data-sort]').forEach(th => th.addEventListener('click', () => sortBy(th)));
+
     // Обработчик клика вне модального окна
     window.addEventListener('click', function(event) {
         if (event.target.classList.contains('modal')) {
@@ -85,19 +97,40 @@ function closeModal(modalId) {
     document.getElementById(modalId).style.display = 'none';
 }
 
-// Загрузка данных
-async function loadRentalServiceFormData() {
-    try {
+// Последние аренды (одна страница) и услуги для формы одним запросом к api-gateway;
+// если страница открыта мимо шлюза - двумя запросами напрямую
+async function fetchRentalServiceFormData() {
+    const response = await fetch('/bff/rental-services-page');
+    if (response.status === 404) {
         const [rentalsResponse, servicesResponse] = await Promise.all([
-            fetch('/api/rentals/show'),
+            fetch('/api/rentals/page?size=200'),
             fetch('/api/services/show')
         ]);
+        return { rentals: await rentalsResponse.json(), services: await servicesResponse.json() };
+    }
+    // 502 - шлюз не получил ни одной части, причины в errors
+    if (!response.ok && response.status !== 502) {
+        throw new Error(await response.text());
+    }
+    return response.json();
+}
 
-        const rentals = await rentalsResponse.json();
-        const services = await servicesResponse.json();
+// Загрузка данных
+async function loadRentalServiceFormData() {
+    try {
+        const data = await fetchRentalServiceFormData();
 
-        fillClientSelect(rentals);
-        fillServiceSelect(services);
+        // Части, которые шлюз не смог получить, перечислены в errors; полученные заполняются как обычно
+        if (data.rentals) {
+            fillClientSelect(data.rentals.items);
+        }
+        if (data.services) {
+            fillServiceSelect(data.services);
+        }
+        if (data.errors) {
+            console.error('Ошибка загрузки данных:', data.errors);
+            alert('Не удалось загрузить данные для формы');
+        }
     } catch (error) {
         console.error('Ошибка загрузки данных:', error);
         alert('Не удалось загрузить данные для формы');
@@ -110,10 +143,10 @@ function fillClientSelect(rentals) {
 
     const clientsMap = new Map();
     rentals.forEach(rental => {
-        if (rental.client && !clientsMap.has(rental.client.id)) {
-            clientsMap.set(rental.client.id, {
+        if (!clientsMap.has(rental.clientId)) {
+            clientsMap.set(rental.clientId, {
                 id: rental.id, // Используем ID аренды
-                name: rental.client.name
+                name: rental.clientName
             });
         }
     });
@@ -138,58 +171,109 @@ function fillServiceSelect(services) {
     });
 }
 
-async function loadRentalServices() {
+// Постраничная загрузка: reset - начать заново с первой страницы, иначе догрузить следующую
+async function loadRentalServices(reset = true) {
+    const params = new URLSearchParams({ sort: currentSort, direction: currentDirection });
+    if (!reset && nextCursor) {
+        params.set('cursor', nextCursor);
+    }
+
     try {
-        const response = await fetch('/api/rentServices/show');
-        const rentalServices = await response.json();
-        renderRentalServices(rentalServices);
+        const response = await fetch(`/api/rentServices/page?${params}`);
+        const page = await response.json();
+        renderRentalServices(page.items, reset);
+        nextCursor = page.next;
+        document.getElementById('loadMoreBtn').style.display = nextCursor ? '' : 'none';
     } catch (error) {
         console.error('Ошибка загрузки заказов:', error);
         alert('Не удалось загрузить список заказов');
     }
 }
 
-function renderRentalServices(rentalServices) {
+// Серверная сортировка по клику на заголовок
+function sortBy(header) {
+    const sort = header.dataset.sort;
+    currentDirection = sort === currentSort && currentDirection === 'ASC' ? 'DESC' : 'ASC';
+    currentSort = sort;
+
+    document.querySelectorAll('th[data-sort]').forEach(th => th.classList.remove('sorted-asc', 'sorted-desc'));
+    header.classList.add(currentDirection === 'ASC' ? 'sorted-asc' : 'sorted-desc');
+    loadRentalServices();
+}
+
+function renderRentalServices(rentalServices, reset) {
     const tbody = document.querySelector('table tbody');
-    tbody.innerHTML = '';
-
-    rentalServices.forEach(service => {
-        const row = document.createElement('tr');
-        row.setAttribute('data-id', service.id);
-
-        const formattedDate = new Date(service.exTime).toLocaleString('ru-RU', {
-            day: '2-digit',
-            month: '2-digit',
-            year: 'numeric',
-            hour: '2-digit',
-            minute: '2-digit'
-        });
+    if (reset) {
+        tbody.innerHTML = '';
+    }
+
+    rentalServices.forEach(service => tbody.appendChild(createRentalServiceRow(service)));
+}
 
-        row.innerHTML = `
-            <td>${service.rental.client.name}</td>
-            <td>${service.service.name}</td>
-            <td>${formatPrice(service.service.price)}</td>
-            <td>${formattedDate}</td>
-            <td>
-                <button class="edit-btn"
-                        data-id="${service.id}"
-                        data-service-id="${service.service.id}"
-                        data-rental-id="${service.rental.id}"
-                        data-price="${service.service.price}"
-                        data-exTime="${new Date(service.exTime).toISOString().slice(0, 16)}"
-                        onclick="openEditRentalServiceModal(this)">
-                    <i class="bi bi-pencil"></i>
-                </button>
-                <button class="delete-btn"
-                        data-id="${service.id}"
-                        onclick="confirmRentalServiceDelete(this)">
-                    <i class="bi bi-trash"></i>
-                </button>
-            </td>
-        `;
-
-        tbody.appendChild(row);
+// Строка из потока заменяет прежнюю на месте, новый заказ добавляется в начало таблицы
+function applyRentalServiceChange(change) {
+    if (isResetFor(change, 'rentalService')) {
+        loadRentalServices();
+        return;
+    }
+    if (change.entity !== 'rentalService') {
+        return;
+    }
+    const row = document.querySelector(`table tbody tr[data-id="${change.id}"]`);
+    if (change.action === 'delete') {
+        if (row) row.remove();
+        return;
+    }
+    const newRow = createRentalServiceRow(change.row);
+    if (row) {
+        row.replaceWith(newRow);
+    } else {
+        document.querySelector('table tbody').prepend(newRow);
+    }
+}
+
+async function refreshAfterChange() {
+    if (!isChangeFeedOpen(changes)) {
+        await loadRentalServices();
+    }
+}
+
+function createRentalServiceRow(service) {
+    const row = document.createElement('tr');
+    row.setAttribute('data-id', service.id);
+
+    const formattedDate = new Date(service.exTime).toLocaleString('ru-RU', {
+        day: '2-digit',
+        month: '2-digit',
+        year: 'numeric',
+        hour: '2-digit',
+        minute: '2-digit'
     });
+
+    row.innerHTML = `
+        <td>${service.clientName}</td>
+        <td>${service.serviceName}</td>
+        <td>${formatPrice(service.servicePrice)}</td>
+        <td>${formattedDate}</td>
+        <td>
+            <button class="edit-btn"
+                    data-id="${service.id}"
+                    data-service-id="${service.serviceId}"
+                    data-rental-id="${service.rentalId}"
+                    data-price="${service.servicePrice}"
+                    data-exTime="${new Date(service.exTime).toISOString().slice(0, 16)}"
+                    onclick="openEditRentalServiceModal(this)">
+                <i class="bi bi-pencil"></i>
+            </button>
+            <button class="delete-btn"
+                    data-id="${service.id}"
+                    onclick="confirmRentalServiceDelete(this)">
+                <i class="bi bi-trash"></i>
+            </button>
+        </td>
+    `;
+
+    return row;
 }
 
 // Обработчики форм
@@ -222,7 +306,7 @@ async function handleAddRentalService(e) {
         if (response.ok) {
             closeModal('addRentalServiceModal');
             document.getElementById('addRentalServiceForm').reset();
-            await loadRentalServices();
+            await refreshAfterChange();
             alert('Заказ успешно добавлен!');
         } else {
             const errorText = await response.text();
@@ -263,7 +347,7 @@ async function handleEditRentalService(e) {
 
         if (response.ok) {
             closeModal('editRentalServiceModal');
-            await loadRentalServices();
+            await refreshAfterChange();
             alert('Заказ успешно обновлен!');
         } else {
             const errorText = await response.text();
@@ -313,7 +397,7 @@ async function deleteRentalService() {
 
         if (response.ok) {
             closeModal('deleteConfirmationDialog');
-            await loadRentalServices();
+            await refreshAfterChange();
             alert('Заказ успешно удален!');
         } else {
             const errorText = await response.text();
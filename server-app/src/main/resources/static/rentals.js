@@ -1,15 +1,16 @@
 // Глобальные переменные
-let bookedDates = {};
 let selectedHouseId = null;
+let editHouseId = null;
 let startPicker, endPicker;
 let editStartPicker, editEndPicker;
 let currentRentalId = null;
+let nextCursor = null;
+let currentSort = 'startDate';
+let currentDirection = 'DESC';
+let changes = null;
 
 // Инициализация страницы
 function initRentalsPage() {
-    // Получаем данные из Thymeleaf
-    bookedDates = window.bookedPeriods || {};
-
     // Форматирование цен
     document.querySelectorAll("tbody td:nth-child(5)").forEach(td => {
         const price = parseFloat(td.textContent);
@@ -18,6 +19,13 @@ function initRentalsPage() {
         }
     });
 
+    // Первая страница уже отрисована сервером
+    const table = document.querySelector('table');
+    nextCursor = table.dataset.nextCursor || null;
+
+    // Изменения, сделанные на других рабочих местах, применяются к таблице построчно
+    changes = subscribeChanges(table.dataset.eventSequence, applyRentalChange);
+
     // Инициализация календарей
     initDatePickers();
 
@@ -47,27 +55,40 @@ function initDatePickers() {
             if (selectedDates.length > 0) {
                 endPicker.set('minDate', selectedDates[0]);
             }
-        }
+        },
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); }
     });
 
     endPicker = flatpickr("#addEndDate", {
         dateFormat: "Y-m-d",
         locale: "ru",
         minDate: "today",
-        disable: [{ from: "1900-01-01", to: "9999-12-31" }]
+        disable: [{ from: "1900-01-01", to: "9999-12-31" }],
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshDisabledDates(instance); }
     });
 
     // Календари для редактирования
     editStartPicker = flatpickr("#editStartDate", {
         dateFormat: "Y-m-d",
         locale: "ru",
-        minDate: "today"
+        minDate: "today",
+        onChange: function(selectedDates) {
+            if (selectedDates.length > 0) {
+                editEndPicker.set('minDate', selectedDates[0]);
+            }
+        },
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshEditDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshEditDisabledDates(instance); }
     });
 
     editEndPicker = flatpickr("#editEndDate", {
         dateFormat: "Y-m-d",
         locale: "ru",
-        minDate: "today"
+        minDate: "today",
+        onMonthChange: function(selectedDates, dateStr, instance) { refreshEditDisabledDates(instance); },
+        onYearChange: function(selectedDates, dateStr, instance) { refreshEditDisabledDates(instance); }
     });
 }
 
@@ -119,6 +140,10 @@ async function handleDiscount(e) {
 
 // Настройка обработчиков событий
 function setupEventListeners() {
+    // Клиенты и дома подбираются по вводу, а не загружаются списками целиком
+    attachTypeahead(document.getElementById('addClientTypeahead'), '/api/clients/suggest');
+    attachTypeahead(document.getElementById('addHouseTypeahead'), '/api/houses/suggest');
+
     // Обработчик выбора дома
     document.getElementById('addHouse').addEventListener('change', function(e) {
         selectedHouseId = e.target.value;
@@ -131,6 +156,10 @@ function setupEventListeners() {
     // Обработчик формы редактирования
     document.getElementById('editRentalForm').addEventListener('submit', handleEditRental);
 
+    // Постраничная загрузка и сортировка
+    document.getElementById('loadMoreBtn').addEventListener('click', () => loadAllRentals(false));
+    document.querySelectorAll('th[data-sort]').forEach(th => th.addEventListener('click', () => sortBy(th)));
+
     // Обработчик клика вне модального окна
     window.addEventListener('click', function(event) {
         if (event.target.classList.contains('modal')) {
@@ -146,7 +175,6 @@ function openModal(modalId) {
         modal.style.display = 'block';
 
         if (modalId === 'addRentalModal') {
-            loadRentalFormData();
             selectedHouseId = null;
             updateDisabledDates();
         }
@@ -164,84 +192,65 @@ function closeModal(modalId) {
     }
 }
 
-// Загрузка данных для форм
-async function loadRentalFormData() {
-    try {
-        const [clientsResponse, housesResponse] = await Promise.all([
-            fetch('/api/clients/show'),
-            fetch('/api/houses/show')
-        ]);
-
-        const clients = await clientsResponse.json();
-        const houses = await housesResponse.json();
-
-        fillSelect('#addClient', clients, 'Выберите клиента');
-        fillSelect('#addHouse', houses, 'Выберите дом');
-    } catch (error) {
-        console.error('Ошибка загрузки данных:', error);
-        alert('Не удалось загрузить данные');
+// Загрузка занятых периодов дома только для окна, видимого в календаре (месяц до и два после текущего)
+async function loadBookedRanges(houseId, picker, excludeRentalId) {
+    const from = new Date(picker.currentYear, picker.currentMonth - 1, 1);
+    const to = new Date(picker.currentYear, picker.currentMonth + 3, 0);
+    let url = `/api/rentals/availability?houseId=${houseId}&from=${formatDateLocal(from)}&to=${formatDateLocal(to)}`;
+    if (excludeRentalId) {
+        url += `&excludeRentalId=${excludeRentalId}`;
     }
-}
-
-function fillSelect(selector, items, placeholder) {
-    const select = document.querySelector(selector);
-    select.innerHTML = `<option value="">${placeholder}</option>`;
-
-    items.forEach(item => {
-        const option = document.createElement('option');
-        option.value = item.id;
-        option.textContent = item.name;
-        select.appendChild(option);
-    });
+    const response = await fetch(url);
+    if (!response.ok) {
+        throw new Error(await response.text());
+    }
+    const intervals = await response.json();
+    return intervals.map(interval => ({ from: interval.startDate, to: interval.endDate }));
 }
 
 // Управление заблокированными датами
-function updateDisabledDates() {
+async function refreshDisabledDates(picker) {
     if (!selectedHouseId) {
-        startPicker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
-        endPicker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
+        picker.set('disable', [{ from: "1900-01-01", to: "9999-12-31" }]);
         return;
     }
 
-    if (!bookedDates[selectedHouseId] || bookedDates[selectedHouseId].length === 0) {
-        startPicker.set('disable', []);
-        endPicker.set('disable', []);
-        return;
+    const houseId = selectedHouseId;
+    try {
+        const disabledRanges = await loadBookedRanges(houseId, picker);
+        if (houseId === selectedHouseId) {
+            picker.set('disable', disabledRanges);
+        }
+    } catch (error) {
+        console.error('Ошибка загрузки занятых дат:', error);
     }
-
-    const disabledRanges = bookedDates[selectedHouseId].map(p => ({
-        from: p.startDate,
-        to: p.endDate
-    }));
-
-    startPicker.set('disable', disabledRanges);
-    endPicker.set('disable', disabledRanges);
 }
 
-function updateEditDisabledDates(houseId, currentStart, currentEnd) {
-    if (!bookedDates[houseId]) return;
-
-    const disabledDates = bookedDates[houseId]
-        .filter(period => period.startDate !== currentStart || period.endDate !== currentEnd)
-        .flatMap(period => {
-            const dates = [];
-            const start = new Date(period.startDate);
-            const end = new Date(period.endDate);
-
-            for (let d = new Date(start); d <= end; d.setDate(d.getDate() + 1)) {
-                dates.push(d.toISOString().split('T')[0]);
-            }
-            return dates;
-        });
+function updateDisabledDates() {
+    refreshDisabledDates(startPicker);
+    refreshDisabledDates(endPicker);
+}
 
-    editStartPicker.set('disable', disabledDates);
-    editEndPicker.set('disable', disabledDates);
+// Для редактирования собственная аренда не блокирует даты
+async function refreshEditDisabledDates(picker) {
+    if (!editHouseId) return;
 
-    editStartPicker.set('onChange', function(selectedDates) {
-        if (selectedDates.length > 0) {
-            editEndPicker.set('minDate', selectedDates[0]);
+    const houseId = editHouseId;
+    const rentalId = currentRentalId;
+    try {
+        const disabledRanges = await loadBookedRanges(houseId, picker, rentalId);
+        if (houseId === editHouseId) {
+            picker.set('disable', disabledRanges);
         }
-    });
+    } catch (error) {
+        console.error('Ошибка загрузки занятых дат:', error);
+    }
+}
+
+function updateEditDisabledDates(houseId) {
+    editHouseId = houseId;
+    refreshEditDisabledDates(editStartPicker);
+    refreshEditDisabledDates(editEndPicker);
 }
 
 // Форматирование даты
@@ -284,7 +293,7 @@ async function handleAddRental(e) {
 
         if (response.ok) {
             closeModal('addRentalModal');
-            await loadAllRentals();
+            await refreshAfterChange();
             alert('Аренда успешно добавлена!');
         } else {
             alert('Ошибка: ' + await response.text());
@@ -299,6 +308,8 @@ async function handleEditRental(e) {
     e.preventDefault();
 
     const rentalId = document.getElementById('editRentalId').value;
+    // Версия, с которой открыта форма: если аренду успели изменить, сервер ответит 409
+    const version = document.getElementById('editRentalVersion').value;
     const startDate = formatDateLocal(editStartPicker.selectedDates[0]);
     const endDate = formatDateLocal(editEndPicker.selectedDates[0]);
 
@@ -308,7 +319,7 @@ async function handleEditRental(e) {
     }
 
     try {
-        const response = await fetch(`/api/rentals/${rentalId}?startDate=${startDate}&endDate=${endDate}`, {
+        const response = await fetch(`/api/rentals/${rentalId}?startDate=${startDate}&endDate=${endDate}${version ? `&version=${version}` : ''}`, {
             method: 'PUT',
             headers: {
                 'X-CSRF-TOKEN': document.querySelector('input[name="_csrf"]').value
@@ -317,7 +328,7 @@ async function handleEditRental(e) {
 
         if (response.ok) {
             closeModal('editRentalModal');
-            await loadAllRentals();
+            await refreshAfterChange();
             alert('Изменения сохранены!');
         } else {
             alert('Ошибка: ' + await response.text());
@@ -329,23 +340,74 @@ async function handleEditRental(e) {
 }
 
 // Работа с таблицей
-async function loadAllRentals() {
+// Постраничная загрузка: reset - начать заново с первой страницы, иначе догрузить следующую
+async function loadAllRentals(reset = true) {
+    const params = new URLSearchParams({ sort: currentSort, direction: currentDirection });
+    if (!reset && nextCursor) {
+        params.set('cursor', nextCursor);
+    }
+
     try {
-        const response = await fetch('/api/rentals/show');
-        const rentals = await response.json();
-        const tbody = document.querySelector('table tbody');
-        tbody.innerHTML = '';
+        const response = await fetch(`/api/rentals/page?${params}`);
+        const page = await response.json();
+        if (reset) {
+            document.querySelector('table tbody').innerHTML = '';
+        }
 
-        rentals.forEach(rental => {
+        page.items.forEach(rental => {
             addRentalToTable(rental);
         });
+        nextCursor = page.next;
+        document.getElementById('loadMoreBtn').style.display = nextCursor ? '' : 'none';
     } catch (error) {
         console.error('Ошибка загрузки аренд:', error);
     }
 }
 
+// Серверная сортировка по клику на заголовок
+function sortBy(header) {
+    const sort = header.dataset.sort;
+    currentDirection = sort === currentSort && currentDirection === 'ASC' ? 'DESC' : 'ASC';
+    currentSort = sort;
+
+    document.querySelectorAll('th[data-sort]').forEach(th => th.classList.remove('sorted-asc', 'sorted-desc'));
+    header.classList.add(currentDirection === 'ASC' ? 'sorted-asc' : 'sorted-desc');
+    loadAllRentals();
+}
+
+// Строка из потока заменяет прежнюю на месте, новая аренда добавляется в начало таблицы
+function applyRentalChange(change) {
+    if (isResetFor(change, 'rental')) {
+        loadAllRentals();
+        return;
+    }
+    if (change.entity !== 'rental') {
+        return;
+    }
+    const row = document.querySelector(`table tbody tr[data-id="${change.id}"]`);
+    if (change.action === 'delete') {
+        if (row) row.remove();
+        return;
+    }
+    const newRow = createRentalRow(change.row);
+    if (row) {
+        row.replaceWith(newRow);
+    } else {
+        document.querySelector('table tbody').prepend(newRow);
+    }
+}
+
+async function refreshAfterChange() {
+    if (!isChangeFeedOpen(changes)) {
+        await loadAllRentals();
+    }
+}
+
 function addRentalToTable(rental) {
-    const tbody = document.querySelector('table tbody');
+    document.querySelector('table tbody').appendChild(createRentalRow(rental));
+}
+
+function createRentalRow(rental) {
     const newRow = document.createElement('tr');
     newRow.setAttribute('data-id', rental.id);
 
@@ -353,19 +415,20 @@ function addRentalToTable(rental) {
     const endDate = new Date(rental.endDate).toLocaleDateString('ru-RU');
 
     newRow.innerHTML = `
-        <td>${rental.client?.name || ''}</td>
-        <td>${rental.house?.name || ''}</td>
+        <td>${rental.clientName || ''}</td>
+        <td>${rental.houseName || ''}</td>
         <td>${startDate}</td>
         <td>${endDate}</td>
         <td>${formatPrice(rental.summaryPrice || 0)}</td>
         <td>
             <button class="edit-btn"
                     data-id="${rental.id}"
-                    data-client-id="${rental.client?.id || ''}"
-                    data-house-id="${rental.house?.id || ''}"
+                    data-client-id="${rental.clientId || ''}"
+                    data-house-id="${rental.houseId || ''}"
                     data-start-date="${rental.startDate}"
                     data-end-date="${rental.endDate}"
                     data-summary-price="${rental.summaryPrice || ''}"
+                    data-version="${rental.version ?? ''}"
                     onclick="openEditRentalModal(this)">
                 <i class="bi bi-pencil"></i>
             </button>
@@ -382,7 +445,7 @@ function addRentalToTable(rental) {
         </td>
     `;
 
-    tbody.appendChild(newRow);
+    return newRow;
 }
 window.openDiscountModal = openDiscountModal;
 
@@ -392,13 +455,14 @@ function openEditRentalModal(button) {
     currentRentalId = button.dataset.id;
 
     document.getElementById('editRentalId').value = currentRentalId;
+    document.getElementById('editRentalVersion').value = button.dataset.version || '';
     document.getElementById('editClientName').textContent = row.cells[0].textContent;
     document.getElementById('editHouseName').textContent = row.cells[1].textContent;
     document.getElementById('editSummaryPrice').textContent = row.cells[4].textContent;
 
     editStartPicker.setDate(button.dataset.startDate);
     editEndPicker.setDate(button.dataset.endDate);
-    updateEditDisabledDates(button.dataset.houseId, button.dataset.startDate, button.dataset.endDate);
+    updateEditDisabledDates(button.dataset.houseId);
 
     openModal('editRentalModal');
 }
@@ -423,7 +487,7 @@ async function deleteRental() {
 
         if (response.ok) {
             closeModal('confirmDeleteModal');
-            await loadAllRentals();
+            await refreshAfterChange();
             alert('Аренда успешно удалена!');
         } else {
             alert('Ошибка: ' + await response.text());
@@ -0,0 +1,112 @@
+// Поле выбора с подсказками: варианты запрашиваются у url?q= по мере ввода, а не загружаются списком целиком.
+// Разметка: <div class="typeahead"><input type="text"><input type="hidden" id="..."><ul class="typeahead-list"></ul></div>.
+// id выбранного варианта кладётся в скрытое поле, и на нём срабатывает change - как у прежнего select
+function attachTypeahead(container, url) {
+    const input = container.querySelector('input[type="text"]');
+    const hidden = container.querySelector('input[type="hidden"]');
+    const list = container.querySelector('.typeahead-list');
+    let items = [];
+    let active = -1;
+    let timer = null;
+    let requestNumber = 0;
+
+    function select(value, text) {
+        hidden.value = value;
+        input.value = text;
+        hidden.dispatchEvent(new Event('change'));
+    }
+
+    function hide() {
+        list.style.display = 'none';
+        active = -1;
+    }
+
+    function render() {
+        list.innerHTML = '';
+        items.forEach((item, index) => {
+            const li = document.createElement('li');
+            li.textContent = item.name;
+            if (item.detail) {
+                const detail = document.createElement('span');
+                detail.className = 'typeahead-detail';
+                detail.textContent = item.detail;
+                li.appendChild(detail);
+            }
+            if (index === active) {
+                li.className = 'active';
+            }
+            // mousedown срабатывает раньше blur поля, который прячет список
+            li.addEventListener('mousedown', event => {
+                event.preventDefault();
+                choose(index);
+            });
+            list.appendChild(li);
+        });
+        list.style.display = items.length ? 'block' : 'none';
+    }
+
+    function choose(index) {
+        const item = items[index];
+        if (item) {
+            select(item.id, item.name);
+            hide();
+        }
+    }
+
+    async function search() {
+        const number = ++requestNumber;
+        try {
+            const response = await fetch(`${url}?q=${encodeURIComponent(input.value.trim())}`);
+            if (!response.ok) {
+                throw new Error(await response.text());
+            }
+            const found = await response.json();
+            // Ответ мог устареть, если за это время набрали ещё символы
+            if (number === requestNumber && document.activeElement === input) {
+                items = found;
+                active = -1;
+                render();
+            }
+        } catch (error) {
+            console.error('Ошибка загрузки подсказок:', error);
+        }
+    }
+
+    input.addEventListener('input', () => {
+        // Выбор сбрасывается, как только текст в поле перестаёт совпадать с выбранным вариантом
+        if (hidden.value) {
+            select('', input.value);
+        }
+        clearTimeout(timer);
+        timer = setTimeout(search, 150);
+    });
+
+    input.addEventListener('focus', search);
+    input.addEventListener('blur', hide);
+
+    input.addEventListener('keydown', event => {
+        if (list.style.display !== 'block') {
+            return;
+        }
+        if (event.key === 'ArrowDown' || event.key === 'ArrowUp') {
+            event.preventDefault();
+            const step = event.key === 'ArrowDown' ? 1 : -1;
+            active = (active + step + items.length) % items.length;
+            render();
+        } else if (event.key === 'Enter' && active >= 0) {
+            event.preventDefault();
+            choose(active);
+        } else if (event.key === 'Escape') {
+            hide();
+        }
+    });
+
+    // reset формы не очищает скрытые поля
+    if (input.form) {
+        input.form.addEventListener('reset', () => {
+            hidden.value = '';
+            items = [];
+            hide();
+        });
+    }
+}
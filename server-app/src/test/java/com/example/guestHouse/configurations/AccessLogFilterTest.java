@@ -0,0 +1,98 @@
+package com.example.guestHouse.configurations;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogFilterTest {
+
+    private final AccessLogFilter filter = new AccessLogFilter();
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLogger.addAppender(appender);
+        accessLogger.setLevel(Level.INFO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+        accessLogger.setLevel(null);
+        SecurityContextHolder.clearContext();
+    }
+
+    private static Map<String, Object> fields(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .filter(pair -> pair.value != null)
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+
+    @Test
+    void doFilter_ShouldLogRouteStatusUserAndDbTime() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/houses/show");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("admin", null, List.of()));
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> AccessLogFilter.captureUser().doFilter(req, res, (r, s) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/houses/show");
+            AccessLogFilter.recordJdbc(3_000_000);
+            AccessLogFilter.recordJdbc(2_000_000);
+        }));
+
+        // Assert
+        assertEquals(1, appender.list.size());
+        Map<String, Object> fields = fields(appender.list.get(0));
+        assertEquals("/api/houses/show", fields.get("route"));
+        assertEquals(200, fields.get("status"));
+        assertEquals("admin", fields.get("user"));
+        assertEquals(5L, fields.get("dbMs"));
+        assertEquals(2, fields.get("dbCalls"));
+        assertTrue(fields.containsKey("durationMs"));
+    }
+
+    @Test
+    void doFilter_WhenHandlerLoggerAtDebug_ShouldAddDetailsForThatHandlerOnly() throws Exception {
+        // Arrange
+        Logger handlerLogger = (Logger) LoggerFactory.getLogger(AccessLogFilter.LOGGER + ".none");
+        handlerLogger.setLevel(Level.DEBUG);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/houses/show");
+        request.setQueryString("page=2");
+
+        // Act
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            });
+        } finally {
+            handlerLogger.setLevel(null);
+        }
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/houses/show"), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        // Assert
+        assertEquals(List.of(Level.INFO, Level.DEBUG, Level.INFO), appender.list.stream().map(ILoggingEvent::getLevel).toList());
+        assertEquals("page=2", fields(appender.list.get(1)).get("query"));
+        assertNull(fields(appender.list.get(0)).get("user"));
+    }
+}
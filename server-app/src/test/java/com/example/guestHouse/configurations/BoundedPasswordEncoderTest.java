@@ -0,0 +1,82 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordEncoder delegating(int strength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    @Test
+    void matches_WithLegacyHash_ShouldMatchAndRequestUpgrade() {
+        // Arrange
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegating(5), 1, 4, meterRegistry)) {
+
+            // Act
+            String newHash = encoder.encode("secret");
+
+            // Assert
+            assertTrue(encoder.matches("secret", legacyHash));
+            assertFalse(encoder.matches("wrong", legacyHash));
+            assertTrue(encoder.upgradeEncoding(legacyHash));
+            assertTrue(newHash.startsWith("{bcrypt}$2a$05$"));
+            assertTrue(encoder.matches("secret", newHash));
+            assertFalse(encoder.upgradeEncoding(newHash));
+            assertEquals(3, meterRegistry.get(BoundedPasswordEncoder.METRIC).tag("operation", "matches").timer().count());
+        }
+    }
+
+    @Test
+    void matches_WhenPoolIsSaturated_ShouldRejectImmediately() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 0, meterRegistry)) {
+            CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act & Assert
+            assertThrows(AuthenticationServiceException.class, () -> encoder.matches("b", "b"));
+            assertThrows(IllegalStateException.class, () -> encoder.encode("c"));
+            release.countDown();
+            assertTrue(busy.get(5, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.get(BoundedPasswordEncoder.METRIC + ".rejected").tag("operation", "matches").counter().count());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBulkheadFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JdbcBulkheadFilter filter = new JdbcBulkheadFilter(1, Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void doFilter_WhenPermitsExhausted_ShouldRespondServiceUnavailable() throws Exception {
+        // Arrange
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> busy = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/rentals/show"), new MockHttpServletResponse(),
+                        (req, res) -> {
+                            inside.countDown();
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/houses/show"), rejected, new MockFilterChain());
+        release.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse afterRelease = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/houses/show"), afterRelease, new MockFilterChain());
+
+        // Assert
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, afterRelease.getStatus());
+        assertEquals(1, meterRegistry.get(JdbcBulkheadFilter.METRIC + ".rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_WithAsyncResponse_ShouldHoldPermitUntilComplete() throws Exception {
+        // Arrange
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/rentals/export");
+        streaming.setAsyncSupported(true);
+        MockHttpServletResponse streamingResponse = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(streaming, streamingResponse, (req, res) -> req.startAsync());
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/houses/show"), whileStreaming, new MockFilterChain());
+        ((MockAsyncContext) streaming.getAsyncContext()).complete();
+        MockHttpServletResponse afterComplete = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/houses/show"), afterComplete, new MockFilterChain());
+
+        // Assert
+        assertEquals(503, whileStreaming.getStatus());
+        assertEquals(200, afterComplete.getStatus());
+    }
+
+    @Test
+    void doFilter_ForStaticResource_ShouldNotTakePermit() throws Exception {
+        // Arrange
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/rentals/export");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        MockHttpServletResponse script = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/rentals.js"), script, new MockFilterChain());
+
+        // Assert
+        assertEquals(200, script.getStatus());
+    }
+}
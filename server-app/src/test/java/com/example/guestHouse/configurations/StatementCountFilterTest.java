@@ -0,0 +1,59 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StatementCountFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new StatementCountFilter(meterRegistry);
+    }
+
+    @Test
+    void doFilter_ShouldRecordStatementsPerRequest() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rentals/5");
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/rentals/{id}");
+            filter.inspect("select 1");
+            filter.inspect("select 2");
+            filter.inspect("select 3");
+        });
+
+        // Assert
+        DistributionSummary summary = meterRegistry.get(StatementCountFilter.METRIC)
+                .tag("uri", "/api/rentals/{id}")
+                .tag("method", "GET")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(3, summary.totalAmount());
+    }
+
+    @Test
+    void inspect_ShouldIgnoreStatementsOutsideRequest() throws Exception {
+        // Arrange
+        filter.inspect("select 1");
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), (req, res) -> { });
+        String sql = filter.inspect("select 2");
+
+        // Assert
+        assertEquals("select 2", sql);
+        assertEquals(0, meterRegistry.get(StatementCountFilter.METRIC).tag("uri", "UNKNOWN").summary().totalAmount());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.guestHouse.configurations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingConfigTest {
+
+    // Открывает настройки, которые StreamingConfig передаёт Spring MVC
+    private static final class Settings extends AsyncSupportConfigurer {
+
+        AsyncTaskExecutor executor() {
+            return getTaskExecutor();
+        }
+
+        Long timeout() {
+            return getTimeout();
+        }
+    }
+
+    @Test
+    void configureAsyncSupport_ShouldUseOwnTimeoutAndBoundedExecutor() throws Exception {
+        // Arrange
+        StreamingConfig config = new StreamingConfig(1, 1, Duration.ofMinutes(30), new SimpleMeterRegistry());
+        Settings settings = new Settings();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // Act
+            config.configureAsyncSupport(settings);
+            AsyncTaskExecutor executor = settings.executor();
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> { });
+
+            // Assert
+            assertEquals(Duration.ofMinutes(30).toMillis(), settings.timeout());
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        } finally {
+            release.countDown();
+            config.destroy();
+        }
+    }
+}
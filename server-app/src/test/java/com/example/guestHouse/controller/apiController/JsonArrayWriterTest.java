@@ -0,0 +1,48 @@
+package com.example.guestHouse.controller.apiController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonArrayWriter writer = new JsonArrayWriter(objectMapper);
+
+    private String write(Consumer<Consumer<Integer>> rows) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamingResponseBody body = writer.stream(rows).getBody();
+        try {
+            body.writeTo(output);
+        } catch (Exception ignored) {
+            // Поток оборвался - проверяется то, что успело уйти клиенту
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void stream_ShouldWriteWholeArray() throws Exception {
+        String json = write(rows -> List.of(1, 2, 3).forEach(rows));
+
+        assertEquals(List.of(1, 2, 3), objectMapper.readValue(json, List.class));
+    }
+
+    @Test
+    void stream_WhenInterrupted_ShouldNotCloseArray() {
+        String json = write(rows -> {
+            rows.accept(1);
+            throw new IllegalStateException("Соединение с БД потеряно");
+        });
+
+        assertEquals("[1", json);
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readValue(json, List.class));
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Агрегаты house_daily_stats и стоимость аренд поддерживаются сервисами при изменениях и совпадают с полным пересчётом
+@DataJpaTest
+@Import({DailyStatsAggregator.class, AnalyticsService.class, RentalService.class, RentalsServicesService.class,
+        ServiceService.class, HouseService.class, HouseAvailabilityIndex.class, PricingEngine.class, ChangeFeed.class})
+class DailyStatsTest {
+
+    private static final LocalDate JUNE_1 = LocalDate.of(2024, 6, 1);
+    private static final LocalDate JUNE_30 = LocalDate.of(2024, 6, 30);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HouseDailyStatsRepository statsRepository;
+
+    @Autowired
+    private DailyStatsAggregator dailyStats;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalsServicesService rentalsServicesService;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    private House lake;
+    private House forest;
+    private Client client;
+    private Service sauna;
+
+    @BeforeEach
+    void setUp() {
+        lake = entityManager.persist(new House(null, "Дом у озера", new BigDecimal("1000.00")));
+        forest = entityManager.persist(new House(null, "Дом в лесу", new BigDecimal("1200.00")));
+        client = entityManager.persist(new Client(null, "Иван Иванов", "79990001122"));
+        sauna = entityManager.persist(new Service(null, "Баня", new BigDecimal("500.00")));
+        entityManager.flush();
+    }
+
+    private Rental rent(House house, LocalDate startDate, LocalDate endDate) {
+        return rentalService.create(new Rental(null, house, client, startDate, endDate, null));
+    }
+
+    private HouseStats june(House house) {
+        List<HouseStats> stats = analyticsService.houseStats(JUNE_1, JUNE_30, AnalyticsService.Granularity.MONTH, house.getId());
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+
+    // Строки агрегатов пишутся мимо Hibernate, поэтому перед чтением контекст сбрасывается
+    private List<HouseDailyStats> snapshot() {
+        entityManager.flush();
+        entityManager.clear();
+        return statsRepository.findAll().stream()
+                .filter(day -> day.getOccupiedDays() != 0 || day.getServiceCount() != 0
+                        || day.getRoomRevenue().signum() != 0 || day.getServiceRevenue().signum() != 0)
+                .sorted(Comparator.comparing(HouseDailyStats::getHouseId).thenComparing(HouseDailyStats::getStatDate))
+                .toList();
+    }
+
+    @Test
+    void createRentalAndService_ShouldFillMonthlyReport() {
+        Rental rental = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 13));
+        rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 11, 18, 0)));
+
+        HouseStats stats = june(lake);
+
+        // Три ночи по 1000 плюс баня; занятыми считаются ночи, день выезда свободен
+        assertEquals(0, new BigDecimal("3500.00").compareTo(rental.getSummaryPrice()));
+        assertEquals(30, stats.availableDays());
+        assertEquals(3, stats.occupiedDays());
+        assertEquals(new BigDecimal("0.1000"), stats.occupancyRate());
+        assertEquals(0, new BigDecimal("3000.00").compareTo(stats.roomRevenue()));
+        assertEquals(new BigDecimal("1000.00"), stats.adr());
+        assertEquals(new BigDecimal("100.00"), stats.revpar());
+        assertEquals(1, stats.serviceCount());
+        assertEquals(0, new BigDecimal("500.00").compareTo(stats.serviceRevenue()));
+        assertEquals(0, june(forest).occupiedDays());
+    }
+
+    @Test
+    void weeklyReport_ShouldClipPeriodsToRequestedRange() {
+        rent(lake, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 4));
+
+        List<HouseStats> weeks = analyticsService.houseStats(JUNE_1, LocalDate.of(2024, 6, 9),
+                AnalyticsService.Granularity.of("week"), lake.getId());
+
+        // 1 и 2 июня 2024 - суббота и воскресенье, дальше полная неделя с понедельника
+        assertEquals(2, weeks.size());
+        assertEquals(2, weeks.get(0).availableDays());
+        assertEquals(2, weeks.get(0).occupiedDays());
+        assertEquals(LocalDate.of(2024, 6, 3), weeks.get(1).periodStart());
+        assertEquals(1, weeks.get(1).occupiedDays());
+        assertEquals(0, new BigDecimal("3000.00").compareTo(weeks.get(0).roomRevenue().add(weeks.get(1).roomRevenue())));
+    }
+
+    @Test
+    void moveRentalToAnotherHouse_ShouldMoveRoomAndServiceRevenue() {
+        Rental rental = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 12));
+        rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 11, 18, 0)));
+
+        rentalService.update(rental.getId(), forest, null, LocalDate.of(2024, 6, 20), LocalDate.of(2024, 6, 21), null);
+
+        assertEquals(0, june(lake).occupiedDays());
+        assertEquals(0, june(lake).serviceRevenue().signum());
+        // Одна ночь: ADR равен цене дома за ночь
+        assertEquals(1, june(forest).occupiedDays());
+        assertEquals(0, new BigDecimal("1200.00").compareTo(june(forest).roomRevenue()));
+        assertEquals(new BigDecimal("1200.00"), june(forest).adr());
+        assertEquals(0, new BigDecimal("1700.00").compareTo(rental.getSummaryPrice()));
+        assertEquals(0, new BigDecimal("500.00").compareTo(june(forest).serviceRevenue()));
+    }
+
+    @Test
+    void servicePriceChange_ShouldRepriceExistingServiceRevenue() {
+        Rental rental = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 12));
+        rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 11, 18, 0)));
+        rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 12, 18, 0)));
+
+        serviceService.update(sauna.getId(), null, new BigDecimal("700.00"), null);
+
+        assertEquals(2, june(lake).serviceCount());
+        assertEquals(0, new BigDecimal("1400.00").compareTo(june(lake).serviceRevenue()));
+        assertEquals(0, new BigDecimal("3400.00").compareTo(rental.getSummaryPrice()));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(june(lake).roomRevenue()));
+    }
+
+    @Test
+    void discountAndHousePriceChange_ShouldRepriceRentalAndRoomRevenue() {
+        Rental rental = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 14));
+        rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 11, 18, 0)));
+
+        rentalService.set_discount(new BigDecimal("10"), rental.getId());
+        houseService.update(lake.getId(), null, new BigDecimal("1500.00"), null);
+
+        // Скидка только на проживание: 4 ночи по 1500 минус 10%, баня по полной цене
+        assertEquals(0, new BigDecimal("5400.00").compareTo(rental.getRoomPrice()));
+        assertEquals(0, new BigDecimal("5900.00").compareTo(rental.getSummaryPrice()));
+        assertEquals(0, new BigDecimal("5400.00").compareTo(june(lake).roomRevenue()));
+        assertThrows(IllegalArgumentException.class, () -> rentalService.set_discount(new BigDecimal("101"), rental.getId()));
+    }
+
+    @Test
+    void deletes_ShouldReturnAggregatesToZero() {
+        Rental rental = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 12));
+        RentalsServices order = rentalsServicesService.create(new RentalsServices(null, sauna, rental, LocalDateTime.of(2024, 6, 11, 18, 0)));
+
+        rentalsServicesService.delete(order.getId());
+        rentalService.delete(rental.getId());
+
+        assertTrue(snapshot().isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldMatchIncrementalAggregates() {
+        Rental first = rent(lake, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 16));
+        rent(forest, LocalDate.of(2024, 6, 28), LocalDate.of(2024, 7, 2));
+        rentalsServicesService.create(new RentalsServices(null, sauna, first, LocalDateTime.of(2024, 6, 11, 18, 0)));
+        rentalService.update(first.getId(), null, null, LocalDate.of(2024, 6, 9), null, null);
+        rentalService.set_discount(new BigDecimal("33.3"), first.getId());
+        List<HouseDailyStats> incremental = snapshot();
+
+        dailyStats.rebuild();
+        List<HouseDailyStats> rebuilt = snapshot();
+
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < rebuilt.size(); i++) {
+            assertEquals(incremental.get(i).getStatDate(), rebuilt.get(i).getStatDate());
+            assertEquals(incremental.get(i).getOccupiedDays(), rebuilt.get(i).getOccupiedDays());
+            assertEquals(0, incremental.get(i).getRoomRevenue().compareTo(rebuilt.get(i).getRoomRevenue()));
+            assertEquals(0, incremental.get(i).getServiceRevenue().compareTo(rebuilt.get(i).getServiceRevenue()));
+        }
+    }
+
+    // Аренда со стоимостью, записанной в обход PricingEngine, как до его появления
+    @Test
+    void repriceAll_ShouldPriceLegacyRentalsAndKeepAggregatesConsistent() {
+        Rental legacy = entityManager.persist(new Rental(null, lake, client, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 3), new BigDecimal("777.00")));
+        entityManager.persist(new RentalsServices(null, sauna, legacy, LocalDateTime.of(2024, 6, 2, 18, 0)));
+        dailyStats.rebuild();
+
+        assertEquals(1, pricingEngine.repriceAll());
+        List<HouseDailyStats> incremental = snapshot();
+        dailyStats.rebuild();
+
+        assertEquals(0, new BigDecimal("2500.00").compareTo(entityManager.find(Rental.class, legacy.getId()).getSummaryPrice()));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(june(lake).roomRevenue()));
+        assertEquals(incremental.size(), snapshot().size());
+    }
+
+    @Test
+    void houseStats_WithInvalidGranularity_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> AnalyticsService.Granularity.of("year"));
+        assertThrows(IllegalArgumentException.class,
+                () -> analyticsService.houseStats(JUNE_30, JUNE_1, AnalyticsService.Granularity.DAY, null));
+    }
+}
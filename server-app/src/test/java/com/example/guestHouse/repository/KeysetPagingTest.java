@@ -0,0 +1,92 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.service.KeysetPage;
+import com.example.guestHouse.service.ScrollCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Листание по ключу, который может быть пустым: строки с null не теряются и не повторяются на границе страниц
+@DataJpaTest
+class KeysetPagingTest {
+
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("name", String.class, "price", BigDecimal.class);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HouseRepository houseRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Второй и третий дома без названия: при странице из двух строк граница проходит по строке с null
+        house("Берёзка", "1000.00");
+        house(null, null);
+        house(null, "3000.00");
+        house("Антон", null);
+        house("Вишня", "2000.00");
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void house(String name, String price) {
+        ids.add(entityManager.persist(new House(null, name, price == null ? null : new BigDecimal(price))).getId());
+    }
+
+    private List<Long> scrollAll(String sort, Sort.Direction direction, int size) {
+        List<Long> seen = new ArrayList<>();
+        String token = null;
+        do {
+            KeysetPage<House> page = ScrollCursor.of(token, sort, direction, SORT_KEYS).page(houseRepository, size);
+            page.items().forEach(house -> seen.add(house.getId()));
+            token = page.next();
+        } while (token != null);
+        return seen;
+    }
+
+    @Test
+    void scroll_Ascending_ShouldPutNullsLast() {
+        List<Long> expected = List.of(ids.get(3), ids.get(0), ids.get(4), ids.get(1), ids.get(2));
+
+        assertEquals(expected, scrollAll("name", Sort.Direction.ASC, 2));
+        assertEquals(expected, scrollAll("name", Sort.Direction.ASC, 1));
+        assertEquals(expected, scrollAll("name", Sort.Direction.ASC, 3));
+    }
+
+    @Test
+    void scroll_Descending_ShouldPutNullsFirst() {
+        List<Long> expected = List.of(ids.get(2), ids.get(1), ids.get(4), ids.get(0), ids.get(3));
+
+        assertEquals(expected, scrollAll("name", Sort.Direction.DESC, 2));
+        assertEquals(expected, scrollAll("name", Sort.Direction.DESC, 1));
+        assertEquals(expected, scrollAll("name", Sort.Direction.DESC, 5));
+    }
+
+    @Test
+    void scroll_ByPrice_ShouldReturnEveryHouseOnce() {
+        assertEquals(List.of(ids.get(0), ids.get(4), ids.get(2), ids.get(1), ids.get(3)),
+                scrollAll("price", Sort.Direction.ASC, 2));
+    }
+
+    @Test
+    void page_WhenFirstPartFillsPage_ShouldReturnTokenOnlyIfRowsRemain() {
+        KeysetPage<House> nonNull = ScrollCursor.of(null, "name", Sort.Direction.ASC, SORT_KEYS).page(houseRepository, 3);
+        KeysetPage<House> all = ScrollCursor.of(null, "name", Sort.Direction.ASC, SORT_KEYS).page(houseRepository, 5);
+
+        assertNotNull(nonNull.next());
+        assertNull(all.next());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.service.KeysetPage;
+import com.example.guestHouse.service.ScrollCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Списки аренд и заказанных услуг должны загружаться одним запросом независимо от числа домов и клиентов
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListingQueryCountTest {
+
+    private static final int ROWS = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalsServicesRepository rentalsServicesRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // У каждой аренды свой дом и свой клиент - худший случай для догрузки связей
+        for (int i = 0; i < ROWS; i++) {
+            House house = entityManager.persist(new House(null, "Дом " + i, new BigDecimal("1000.00")));
+            Client client = entityManager.persist(new Client(null, "Клиент " + i, "7999000000" + i));
+            Service service = entityManager.persist(new Service(null, "Услуга " + i, new BigDecimal("500.00")));
+            Rental rental = entityManager.persist(new Rental(null, house, client,
+                    LocalDate.of(2024, 6, 1).plusDays(i), LocalDate.of(2024, 6, 2).plusDays(i), new BigDecimal("2000.00")));
+            entityManager.persist(new RentalsServices(null, service, rental, LocalDateTime.of(2024, 6, 1, 10, 0).plusDays(i)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void streamAllRowsSortedByClients_ShouldUseSingleStatement() {
+        List<RentalRow> rows = rentalRepository.streamAllRowsSortedByClients().toList();
+
+        assertEquals(ROWS, rows.size());
+        assertEquals("Клиент 0", rows.get(0).clientName());
+        assertEquals("Дом 0", rows.get(0).houseName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void streamAllRentalsServicesRows_ShouldUseSingleStatement() {
+        List<RentalsServicesRow> rows = rentalsServicesRepository.streamAllRows().toList();
+
+        assertEquals(ROWS, rows.size());
+        assertEquals("Клиент 0", rows.get(0).clientName());
+        assertEquals("Услуга 0", rows.get(0).serviceName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void streamRowsByPeriod_ShouldFilterByOverlapWithOptionalBounds() {
+        // Аренды i-й строки занимают 1+i .. 2+i июня
+        List<RentalRow> window = rentalRepository.streamRowsByPeriod(LocalDate.of(2024, 6, 3), LocalDate.of(2024, 6, 4)).toList();
+        List<RentalRow> tail = rentalRepository.streamRowsByPeriod(LocalDate.of(2024, 6, 10), null).toList();
+
+        assertEquals(List.of("Клиент 1", "Клиент 2", "Клиент 3"), window.stream().map(RentalRow::clientName).toList());
+        assertEquals(List.of("Клиент 8", "Клиент 9"), tail.stream().map(RentalRow::clientName).toList());
+        assertEquals(ROWS, rentalRepository.streamRowsByPeriod(null, null).count());
+    }
+
+    @Test
+    void streamRowsByExTime_ShouldUseHalfOpenInterval() {
+        List<RentalsServicesRow> rows = rentalsServicesRepository.streamRowsByExTime(
+                LocalDateTime.of(2024, 6, 2, 0, 0), LocalDateTime.of(2024, 6, 4, 0, 0)).toList();
+
+        assertEquals(List.of("Услуга 1", "Услуга 2"), rows.stream().map(RentalsServicesRow::serviceName).toList());
+    }
+
+    @Test
+    void rentalPage_ShouldFetchHousesAndClientsInSameStatement() {
+        KeysetPage<RentalRow> page = ScrollCursor.of(null, "startDate", Sort.Direction.DESC, Map.of("startDate", LocalDate.class))
+                .page(rentalRepository, 5, RentalRow::of, RentalRepository.PAGE_FETCH);
+
+        assertEquals(5, page.items().size());
+        assertNotNull(page.next());
+        assertEquals("Клиент 9", page.items().get(0).clientName());
+        // Сначала строки без даты, затем остальные - по запросу на часть, без догрузки связей
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void rentalsServicesPage_ShouldFetchRelationsInSameStatement() {
+        KeysetPage<RentalsServicesRow> page = ScrollCursor.of(null, "exTime", Sort.Direction.DESC, Map.of("exTime", LocalDateTime.class))
+                .page(rentalsServicesRepository, 5, RentalsServicesRow::of, RentalsServicesRepository.PAGE_FETCH);
+
+        assertEquals(5, page.items().size());
+        assertEquals("Услуга 9", page.items().get(0).serviceName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.configurations.RetryConfig;
+import com.example.guestHouse.service.ChangeFeed;
+import com.example.guestHouse.service.DailyStatsAggregator;
+import com.example.guestHouse.service.HouseAvailabilityIndex;
+import com.example.guestHouse.service.HouseService;
+import com.example.guestHouse.service.PricingEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Версии строк и повтор изменений при конфликте; тестовые транзакции отключены, чтобы каждая попытка коммитилась сама
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({HouseService.class, PricingEngine.class, DailyStatsAggregator.class, HouseAvailabilityIndex.class, ChangeFeed.class, RetryConfig.class,
+        OptimisticLockingTest.Metrics.class})
+class OptimisticLockingTest {
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockitoSpyBean
+    private HouseRepository houseRepository;
+
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private TransactionTemplate concurrent;
+    private Long houseId;
+
+    @BeforeEach
+    void setUp() {
+        concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        houseId = houseRepository.save(new House(null, "Дом у озера", new BigDecimal("1000.00"))).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        houseRepository.deleteAll();
+    }
+
+    // Как findById репозитория: методы интерфейса у шпиона вызвать нельзя
+    private Optional<House> find(Long id) {
+        return Optional.ofNullable(entityManager.find(House.class, id));
+    }
+
+    // Другой администратор меняет дом между чтением и записью в этой транзакции
+    private void changeConcurrently(String name) {
+        concurrent.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE houses SET name = ?, version = version + 1 WHERE id = ?", name, houseId));
+    }
+
+    @Test
+    void staleWrite_ShouldFailInsteadOfOverwriting() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transaction.executeWithoutResult(status -> {
+            House house = houseRepository.findById(houseId).orElseThrow();
+            changeConcurrently("Дом в лесу");
+            house.setPrice(new BigDecimal("1200.00"));
+        }));
+
+        House house = houseRepository.findById(houseId).orElseThrow();
+        assertEquals("Дом в лесу", house.getName());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(house.getPrice()));
+    }
+
+    @Test
+    void update_WithConflictOnFirstAttempt_ShouldRetryOnFreshData() {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            Optional<House> house = find(houseId);
+            if (attempts.incrementAndGet() == 1) {
+                changeConcurrently("Дом в лесу");
+            }
+            return house;
+        }).when(houseRepository).findById(houseId);
+
+        houseService.update(houseId, null, new BigDecimal("1200.00"), null);
+
+        assertEquals(2, attempts.get());
+        House house = houseRepository.findById(houseId).orElseThrow();
+        assertEquals("Дом в лесу", house.getName());
+        assertEquals(0, new BigDecimal("1200.00").compareTo(house.getPrice()));
+        assertEquals(1.0, meterRegistry.counter("guesthouse.optimistic.conflicts").count());
+    }
+
+    @Test
+    void update_WithConflictOnEveryAttempt_ShouldGiveUp() {
+        doAnswer(invocation -> {
+            Optional<House> house = find(houseId);
+            changeConcurrently("Дом " + System.nanoTime());
+            return house;
+        }).when(houseRepository).findById(houseId);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> houseService.update(houseId, null, new BigDecimal("1200.00"), null));
+        verify(houseRepository, times(3)).findById(houseId);
+    }
+
+    @Test
+    void update_WithStaleClientVersion_ShouldBeRejected() {
+        Long version = houseRepository.findById(houseId).orElseThrow().getVersion();
+        houseService.update(houseId, "Дом в лесу", null, version);
+
+        assertThrows(IllegalStateException.class, () -> houseService.update(houseId, "Дом у реки", null, version));
+        assertEquals("Дом в лесу", houseRepository.findById(houseId).orElseThrow().getName());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.service.ChangeFeed;
+import com.example.guestHouse.service.ClientService;
+import com.example.guestHouse.service.DailyStatsAggregator;
+import com.example.guestHouse.service.HouseAvailabilityIndex;
+import com.example.guestHouse.service.HouseService;
+import com.example.guestHouse.service.PricingEngine;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Тестовые транзакции отключены: кэш сбрасывается и заполняется только после коммита
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CacheConfig.class, HouseService.class, PricingEngine.class, DailyStatsAggregator.class, HouseAvailabilityIndex.class,
+        ChangeFeed.class, ClientService.class})
+class ReferenceCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HouseRepository houseRepository;
+
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private Long houseId;
+
+    @BeforeEach
+    void setUp() {
+        houseId = houseRepository.save(new House(null, "Дом у озера", new BigDecimal("1500.00"))).getId();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        houseRepository.deleteAll();
+        clientRepository.deleteAll();
+    }
+
+    @Test
+    void findCachedById_ShouldQueryDatabaseOnce() {
+        houseRepository.findCachedById(houseId);
+        houseRepository.findCachedById(houseId);
+
+        assertEquals("Дом у озера", houseRepository.findCachedById(houseId).orElseThrow().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void update_ShouldEvictCachedHouse() {
+        houseRepository.findCachedById(houseId);
+
+        houseService.update(houseId, "Дом в лесу", null, null);
+
+        assertEquals("Дом в лесу", houseRepository.findCachedById(houseId).orElseThrow().getName());
+        assertTrue(houseRepository.findByName("Дом у озера").isEmpty());
+    }
+
+    @Test
+    void update_WhenHouseIsReadBeforeCommit_ShouldNotLeaveOldPriceInCache() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transaction.executeWithoutResult(status -> {
+            houseService.update(houseId, null, new BigDecimal("2000.00"), null);
+            // Другой запрос (например, создание аренды) читает дом, пока изменение ещё не закоммичено
+            BigDecimal seen = concurrent.execute(read -> houseRepository.findCachedById(houseId).orElseThrow().getPrice());
+            assertEquals(0, new BigDecimal("1500.00").compareTo(seen));
+        });
+
+        assertEquals(0, new BigDecimal("2000.00").compareTo(houseRepository.findCachedById(houseId).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void findCachedById_WhenTransactionRollsBack_ShouldNotCacheUncommittedValue() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            House house = houseRepository.findById(houseId).orElseThrow();
+            house.setPrice(new BigDecimal("2000.00"));
+            houseRepository.saveAndFlush(house);
+            // Дом читается через кэш, пока изменение не закоммичено, после чего транзакция откатывается
+            assertEquals(0, new BigDecimal("2000.00").compareTo(houseRepository.findCachedById(houseId).orElseThrow().getPrice()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, new BigDecimal("1500.00").compareTo(houseRepository.findCachedById(houseId).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void create_ShouldEvictCachedMissByName() {
+        // Отсутствие записи тоже кэшируется и должно сбрасываться при создании
+        assertTrue(houseRepository.findByName("Апартаменты").isEmpty());
+
+        houseService.create(new House(null, "Апартаменты", new BigDecimal("2000.00")));
+
+        assertTrue(houseRepository.findByName("Апартаменты").isPresent());
+    }
+
+    @Test
+    void create_WithoutPhoneOrName_ShouldNotFailOnNullCacheKey() {
+        Client client = clientService.create(new Client(null, "Иван Иванов", null));
+        House house = houseService.create(new House(null, null, new BigDecimal("2000.00")));
+
+        assertNotNull(client.getId());
+        assertNotNull(house.getId());
+        assertTrue(clientRepository.findByPhoneNumber(null).isEmpty());
+    }
+}
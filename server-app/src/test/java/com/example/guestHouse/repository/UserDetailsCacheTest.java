@@ -0,0 +1,106 @@
+package com.example.guestHouse.repository;
+
+import com.example.guestHouse.configurations.CacheConfig;
+import com.example.guestHouse.repository.enums.Role;
+import com.example.guestHouse.service.CustomUserDetailsService;
+import com.example.guestHouse.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Тестовые транзакции отключены: кэш сбрасывается только после коммита изменения
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CacheConfig.class, CustomUserDetailsService.class, UserService.class, BCryptPasswordEncoder.class})
+class UserDetailsCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(new User(null, "manager", true, "password",
+                new HashSet<>(Set.of(Role.ROLE_USER)), null)).getId();
+        cacheManager.getCache(CacheConfig.USER_DETAILS).clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void loadUserByUsername_ShouldQueryDatabaseOnlyOnFirstCall() {
+        userDetailsService.loadUserByUsername("manager");
+        long firstLoadStatements = statistics.getPrepareStatementCount();
+        userDetailsService.loadUserByUsername("manager");
+
+        UserDetails user = userDetailsService.loadUserByUsername("manager");
+
+        assertEquals("manager", user.getUsername());
+        assertTrue(firstLoadStatements > 0);
+        assertEquals(firstLoadStatements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void changeUserRole_ShouldEvictCachedUser() {
+        userDetailsService.loadUserByUsername("manager");
+
+        userService.changeUserRole(userService.findUserById(userId).orElseThrow(), Role.ROLE_ADMIN);
+
+        assertTrue(userDetailsService.loadUserByUsername("manager").getAuthorities().contains(Role.ROLE_ADMIN));
+    }
+
+    @Test
+    void deleteUser_ShouldEvictCachedUser() {
+        userDetailsService.loadUserByUsername("manager");
+
+        userService.deleteUser(userId);
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("manager"));
+    }
+
+    @Test
+    void updatePassword_ShouldStoreNewHashAndEvictCachedUser() {
+        UserDetails cached = userDetailsService.loadUserByUsername("manager");
+
+        userDetailsService.updatePassword(cached, "{bcrypt}new-hash");
+
+        assertEquals("{bcrypt}new-hash", userDetailsService.loadUserByUsername("manager").getPassword());
+    }
+}
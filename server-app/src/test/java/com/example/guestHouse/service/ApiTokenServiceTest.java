@@ -0,0 +1,86 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.User;
+import com.example.guestHouse.repository.enums.Role;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiTokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final ApiTokenService apiTokenService = new ApiTokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15));
+
+    private User createTestUser() {
+        return new User(1L, "admin", true, "password", Set.of(Role.ROLE_USER, Role.ROLE_ADMIN), LocalDateTime.now());
+    }
+
+    @Test
+    void authenticate_WithIssuedToken_ShouldRestoreUserAndRoles() {
+        // Arrange
+        String token = apiTokenService.issue(createTestUser()).token();
+
+        // Act
+        Optional<Authentication> authentication = apiTokenService.authenticate(token);
+
+        // Assert
+        assertTrue(authentication.isPresent());
+        assertEquals("admin", authentication.get().getName());
+        assertTrue(authentication.get().isAuthenticated());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), authentication.get().getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void authenticate_WithModifiedPayload_ShouldReject() {
+        // Arrange
+        String token = apiTokenService.issue(createTestUser()).token();
+        String signature = token.substring(token.indexOf('.'));
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}".getBytes());
+
+        // Act & Assert
+        assertTrue(apiTokenService.authenticate(forgedPayload + signature).isEmpty());
+        assertTrue(apiTokenService.authenticate("garbage").isEmpty());
+        assertTrue(apiTokenService.authenticate("a.b.c").isEmpty());
+    }
+
+    @Test
+    void authenticate_WithOtherSecret_ShouldReject() {
+        // Arrange
+        ApiTokenService otherService = new ApiTokenService(new ObjectMapper(), SECRET.toUpperCase(), Duration.ofMinutes(15));
+        String token = otherService.issue(createTestUser()).token();
+
+        // Act & Assert
+        assertTrue(apiTokenService.authenticate(token).isEmpty());
+    }
+
+    @Test
+    void authenticate_WithExpiredToken_ShouldReject() {
+        // Arrange
+        ApiTokenService expiredService = new ApiTokenService(new ObjectMapper(), SECRET, Duration.ofSeconds(-1));
+        String token = expiredService.issue(createTestUser()).token();
+
+        // Act & Assert
+        assertTrue(expiredService.authenticate(token).isEmpty());
+    }
+
+    @Test
+    void constructor_WithShortSecret_ShouldThrowException() {
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new ApiTokenService(new ObjectMapper(), "short", Duration.ofMinutes(15)));
+        assertTrue(exception.getMessage().contains("32"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.controller.apiController.ChangeFeedController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class ChangeFeedTest {
+
+    private ChangeFeed changeFeed;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        changeFeed = new ChangeFeed(4, 3, 1, Duration.ofSeconds(15), Duration.ofMinutes(1));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ChangeFeedController(changeFeed)).build();
+    }
+
+    // Ответ потока после того, как поток отправки успел записать накопленные события
+    private String stream(String lastEventId) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(ChangeFeedController.PATH).header("Last-Event-ID", lastEventId))
+                .andReturn().getResponse();
+        for (int i = 0; i < 50 && !response.getContentAsString().contains("\n\n"); i++) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(50);
+        return response.getContentAsString();
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.destroy();
+    }
+
+    @Test
+    void publish_OutsideTransaction_ShouldAdvanceSequenceImmediately() {
+        // Arrange
+        long start = changeFeed.currentSequence();
+
+        // Act
+        changeFeed.publishUpsert(ChangeFeed.HOUSE, 1L, () -> "Дом у озера");
+        changeFeed.publishDelete(ChangeFeed.HOUSE, 1L);
+
+        // Assert
+        assertEquals(start + 2, changeFeed.currentSequence());
+    }
+
+    @Test
+    void publishUpsert_WithFailingRow_ShouldPublishResetInsteadOfThrowing() {
+        // Arrange
+        long start = changeFeed.currentSequence();
+
+        // Act & Assert
+        assertDoesNotThrow(() -> changeFeed.publishUpsert(ChangeFeed.RENTAL, 1L, () -> {
+            throw new IllegalStateException("no session");
+        }));
+        assertEquals(start + 1, changeFeed.currentSequence());
+    }
+
+    @Test
+    void subscribe_OverSubscriberLimit_ShouldBeRejected() {
+        // Arrange
+        changeFeed.subscribe(null);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> changeFeed.subscribe(null));
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldReplayMissedEvents() throws Exception {
+        // Arrange
+        long start = changeFeed.currentSequence();
+        changeFeed.publishUpsert(ChangeFeed.HOUSE, 1L, () -> "Дом у озера");
+        changeFeed.publishUpsert(ChangeFeed.HOUSE, 2L, () -> "Дом в лесу");
+        changeFeed.publishDelete(ChangeFeed.HOUSE, 1L);
+
+        // Act
+        String body = stream(String.valueOf(start + 1));
+
+        // Assert
+        assertFalse(body.contains("id:" + (start + 1) + "\n"));
+        assertTrue(body.contains("id:" + (start + 2) + "\n"));
+        assertTrue(body.contains("id:" + (start + 3) + "\n"));
+        assertTrue(body.contains("\"action\":\"delete\""));
+    }
+
+    @Test
+    void subscribe_WithEventsGoneFromHistory_ShouldSendReset() throws Exception {
+        // Arrange
+        long start = changeFeed.currentSequence();
+        for (long id = 1; id <= 6; id++) {
+            changeFeed.publishDelete(ChangeFeed.CLIENT, id);
+        }
+
+        // Act
+        String body = stream(String.valueOf(start));
+
+        // Assert
+        assertTrue(body.contains("id:" + (start + 6) + "\n"));
+        assertTrue(body.contains("\"action\":\"reset\""));
+        assertFalse(body.contains("\"action\":\"delete\""));
+    }
+}
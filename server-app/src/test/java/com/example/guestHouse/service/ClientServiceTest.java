@@ -21,6 +21,9 @@ class ClientServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private ChangeFeed changeFeed;
+
     @InjectMocks
     private ClientService clientService;
 
@@ -119,7 +122,7 @@ class ClientServiceTest {
         when(clientRepository.findByPhoneNumber(newPhone)).thenReturn(Optional.empty());
 
         // Act
-        clientService.update(clientId, newName, newPhone);
+        clientService.update(clientId, newName, newPhone, null);
 
         // Assert
         assertEquals(newName, existingClient.getName());
@@ -142,7 +145,7 @@ class ClientServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> clientService.update(clientId, null, newPhone));
+                () -> clientService.update(clientId, null, newPhone, null));
 
         assertEquals("Клиент с таким номером телефона уже существует", exception.getMessage());
         verify(clientRepository, times(1)).findById(clientId);
@@ -157,7 +160,7 @@ class ClientServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> clientService.update(nonExistingId, "Новое Имя", null));
+                () -> clientService.update(nonExistingId, "Новое Имя", null, null));
 
         assertEquals("Клиента с id 99 не существует", exception.getMessage());
         verify(clientRepository, times(1)).findById(nonExistingId);
@@ -176,7 +179,7 @@ class ClientServiceTest {
         when(clientRepository.findById(clientId)).thenReturn(Optional.of(existingClient));
 
         // Act - обновляем только имя
-        clientService.update(clientId, newName, null);
+        clientService.update(clientId, newName, null, null);
 
         // Assert
         assertEquals(newName, existingClient.getName());
@@ -184,4 +187,32 @@ class ClientServiceTest {
         verify(clientRepository, times(1)).findById(clientId);
         verify(clientRepository, never()).findByPhoneNumber(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void suggest_ShouldFollowCreateUpdateAndDelete() {
+        // Arrange
+        Client client = new Client(1L, "Иван Иванов", "79990001122");
+        when(clientRepository.findAllSortedByAlphabet()).thenReturn(List.of(client));
+        when(clientRepository.findByPhoneNumber(any())).thenReturn(Optional.empty());
+        Client newClient = new Client(null, "Анна Иванова", "79161234567");
+        Client savedClient = new Client(2L, "Анна Иванова", "79161234567");
+        when(clientRepository.save(newClient)).thenReturn(savedClient);
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(client));
+        when(clientRepository.findById(2L)).thenReturn(Optional.of(savedClient));
+
+        // Act
+        clientService.rebuildSuggestIndex();
+        clientService.create(newClient);
+        clientService.update(1L, "Иван Смирнов", null, null);
+        List<Suggestion> byName = clientService.suggest("иван", null);
+        List<Suggestion> byPhone = clientService.suggest("1234", null);
+        clientService.delete(2L);
+        List<Suggestion> afterDelete = clientService.suggest("иван", null);
+
+        // Assert
+        assertEquals(List.of(new Suggestion(2L, "Анна Иванова", "79161234567"),
+                new Suggestion(1L, "Иван Смирнов", "79990001122")), byName);
+        assertEquals(List.of(2L), byPhone.stream().map(Suggestion::id).toList());
+        assertEquals(List.of(1L), afterDelete.stream().map(Suggestion::id).toList());
+    }
+}
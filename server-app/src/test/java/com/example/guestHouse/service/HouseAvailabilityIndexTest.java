@@ -0,0 +1,150 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.BookedPeriod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HouseAvailabilityIndexTest {
+
+    private HouseAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HouseAvailabilityIndex();
+        index.rebuild(List.of(
+                new BookedPeriod(1L, 1L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 10)),
+                new BookedPeriod(2L, 1L, LocalDate.of(2024, 6, 20), LocalDate.of(2024, 6, 25)),
+                new BookedPeriod(3L, 2L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30))
+        ));
+    }
+
+    @Test
+    void findOverlap_WithFreePeriod_ShouldReturnNull() {
+        assertNull(index.findOverlap(1L, LocalDate.of(2024, 6, 11), LocalDate.of(2024, 6, 19), null));
+        assertNull(index.findOverlap(3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30), null));
+    }
+
+    @Test
+    void findOverlap_WithTouchingBoundary_ShouldReturnRental() {
+        // Границы периодов включительные: день выезда занят
+        assertEquals(1L, index.findOverlap(1L, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 12), null));
+        assertEquals(2L, index.findOverlap(1L, LocalDate.of(2024, 6, 15), LocalDate.of(2024, 6, 20), null));
+    }
+
+    @Test
+    void findOverlap_ShouldIgnoreExcludedRental() {
+        assertNull(index.findOverlap(1L, LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 15), 1L));
+        assertEquals(2L, index.findOverlap(1L, LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 21), 1L));
+    }
+
+    @Test
+    void findOverlap_WithLongLegacyPeriod_ShouldFindIt() {
+        // Длинная аренда, начинающаяся раньше коротких, должна находиться несмотря на сортировку по началу
+        index.put(10L, 3L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        index.put(11L, 3L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2));
+
+        assertEquals(10L, index.findOverlap(3L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3), null));
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepPeriodsSortedAndCurrent() {
+        index.put(4L, 1L, LocalDate.of(2024, 6, 12), LocalDate.of(2024, 6, 14));
+        index.put(2L, 2L, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 3));
+        index.remove(1L);
+
+        List<BookedPeriod> house1 = index.findPeriods(1L);
+        assertEquals(List.of(4L), house1.stream().map(BookedPeriod::rentalId).toList());
+        assertEquals(2, index.findPeriods(2L).size());
+        assertEquals(1, index.getBookedPeriodsByHouse().get(1L).size());
+    }
+
+    @Test
+    void findBookedIntervals_ShouldMergeAndClipToWindow() {
+        index.put(4L, 1L, LocalDate.of(2024, 6, 11), LocalDate.of(2024, 6, 12));
+
+        List<DateInterval> intervals = index.findBookedIntervals(1L,
+                LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 22), null);
+
+        // 1-10 и 11-12 идут подряд и сливаются, 20-25 обрезается по концу окна
+        assertEquals(List.of(
+                new DateInterval(LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 12)),
+                new DateInterval(LocalDate.of(2024, 6, 20), LocalDate.of(2024, 6, 22))
+        ), intervals);
+    }
+
+    @Test
+    void findBookedIntervals_ShouldSkipExcludedRentalAndPeriodsOutsideWindow() {
+        List<DateInterval> intervals = index.findBookedIntervals(1L,
+                LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 15), 1L);
+
+        assertTrue(intervals.isEmpty());
+    }
+
+    @Test
+    void isFree_ShouldCheckEveryDayOfRangeInclusive() {
+        assertTrue(index.isFree(1L, LocalDate.of(2024, 6, 11), LocalDate.of(2024, 6, 19)));
+        assertFalse(index.isFree(1L, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 11)));
+        assertFalse(index.isFree(1L, LocalDate.of(2024, 5, 1), LocalDate.of(2025, 5, 1)));
+        assertTrue(index.isFree(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 5, 31)));
+        assertTrue(index.isFree(1L, LocalDate.of(2024, 6, 26), LocalDate.of(2026, 1, 1)));
+        // Дом без аренд свободен всегда
+        assertTrue(index.isFree(3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)));
+    }
+
+    @Test
+    void remove_ShouldKeepDaysCoveredByOverlappingLegacyRental() {
+        index.put(10L, 3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 20));
+        index.put(11L, 3L, LocalDate.of(2024, 6, 15), LocalDate.of(2024, 7, 5));
+        index.remove(11L);
+
+        assertFalse(index.isFree(3L, LocalDate.of(2024, 6, 20), LocalDate.of(2024, 6, 20)));
+        assertTrue(index.isFree(3L, LocalDate.of(2024, 6, 21), LocalDate.of(2024, 7, 5)));
+
+        index.put(10L, 3L, LocalDate.of(2024, 8, 1), LocalDate.of(2024, 8, 2));
+
+        assertTrue(index.isFree(3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 31)));
+        assertFalse(index.isFree(3L, LocalDate.of(2024, 8, 2), LocalDate.of(2024, 8, 9)));
+    }
+
+    @Test
+    void isFree_ShouldMatchOverlapSearchAcrossWordBoundaries() {
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2024, 1, 1);
+        for (long rentalId = 100; rentalId < 400; rentalId++) {
+            LocalDate start = base.plusDays(random.nextInt(700));
+            index.put(rentalId, 4L + random.nextInt(3), start, start.plusDays(random.nextInt(20)));
+            if (random.nextInt(4) == 0) {
+                index.remove(rentalId - random.nextInt(50));
+            }
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long houseId = 4L + random.nextInt(3);
+            LocalDate from = base.plusDays(random.nextInt(760) - 30);
+            LocalDate to = from.plusDays(random.nextInt(140));
+            assertEquals(index.findOverlap(houseId, from, to, null) == null, index.isFree(houseId, from, to),
+                    "дом " + houseId + ", " + from + " - " + to);
+        }
+    }
+
+    @Test
+    void findRuns_ShouldKeepOverlappingLegacyRentalsAndHouseOrder() {
+        index.put(10L, 3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 20));
+        index.put(11L, 3L, LocalDate.of(2024, 6, 15), LocalDate.of(2024, 7, 5));
+
+        List<PlannerRun> runs = index.findRuns(List.of(3L, 1L, 5L), LocalDate.of(2024, 6, 5), LocalDate.of(2024, 6, 24));
+
+        assertEquals(List.of(
+                new PlannerRun(3L, 0, 16, 10L),
+                new PlannerRun(3L, 10, 10, 11L),
+                new PlannerRun(1L, 0, 6, 1L),
+                new PlannerRun(1L, 15, 5, 2L)
+        ), runs);
+    }
+}
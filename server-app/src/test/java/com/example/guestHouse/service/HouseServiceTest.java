@@ -9,6 +9,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,15 @@ class HouseServiceTest {
     @Mock
     private HouseRepository houseRepository;
 
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private HouseAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
     @InjectMocks
     private HouseService houseService;
 
@@ -124,7 +134,7 @@ class HouseServiceTest {
         when(houseRepository.findByName(newName)).thenReturn(Optional.empty());
 
         // Act
-        houseService.update(houseId, newName, newPrice);
+        houseService.update(houseId, newName, newPrice, null);
 
         // Assert
         assertEquals(newName, existingHouse.getName());
@@ -146,7 +156,7 @@ class HouseServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> houseService.update(houseId, newName, null));
+                () -> houseService.update(houseId, newName, null, null));
 
         assertEquals("Дом с таким именем уже существует", exception.getMessage());
         verify(houseRepository, times(1)).findById(houseId);
@@ -161,7 +171,7 @@ class HouseServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> houseService.update(nonExistingId, "Новое имя", null));
+                () -> houseService.update(nonExistingId, "Новое имя", null, null));
 
         assertEquals("Дома с id 99 не существует", exception.getMessage());
         verify(houseRepository, times(1)).findById(nonExistingId);
@@ -177,7 +187,7 @@ class HouseServiceTest {
         when(houseRepository.findById(houseId)).thenReturn(Optional.of(existingHouse));
 
         // Act
-        houseService.update(houseId, null, newPrice);
+        houseService.update(houseId, null, newPrice, null);
 
         // Assert
         assertEquals("Хороший дом", existingHouse.getName()); // Имя не изменилось
@@ -196,7 +206,7 @@ class HouseServiceTest {
         when(houseRepository.findByName(newName)).thenReturn(Optional.empty());
 
         // Act
-        houseService.update(houseId, newName, null);
+        houseService.update(houseId, newName, null, null);
 
         // Assert
         assertEquals(newName, existingHouse.getName()); // Имя изменилось
@@ -204,4 +214,56 @@ class HouseServiceTest {
         verify(houseRepository, times(1)).findById(houseId);
         verify(houseRepository, times(1)).findByName(newName);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAvailable_ShouldReturnOnlyFreeHouses() {
+        // Arrange
+        House house1 = createTestHouse(1L, "Апартаменты в горах", "2000.00");
+        House house2 = createTestHouse(2L, "Дом у озера", "1500.00");
+        LocalDate from = LocalDate.of(2024, 6, 10);
+        LocalDate to = LocalDate.of(2024, 6, 15);
+        when(houseRepository.findAllSortedByAlphabet()).thenReturn(List.of(house1, house2));
+        when(availabilityIndex.isFree(1L, from, to)).thenReturn(false);
+        when(availabilityIndex.isFree(2L, from, to)).thenReturn(true);
+
+        // Act
+        List<House> result = houseService.findAvailable(from, to);
+
+        // Assert
+        assertEquals(List.of(house2), result);
+    }
+
+    @Test
+    void findAvailable_WithInvalidRange_ShouldThrow() {
+        // Arrange
+        LocalDate from = LocalDate.of(2024, 6, 10);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> houseService.findAvailable(from, from.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> houseService.findAvailable(from, from.plusYears(3)));
+        verifyNoInteractions(houseRepository);
+    }
+
+    @Test
+    void suggest_ShouldFollowCreateAndDelete() {
+        // Arrange
+        House house = createTestHouse(1L, "Дом у озера", "1000.00");
+        House newHouse = createTestHouse(null, "Домик в лесу", "800.00");
+        when(houseRepository.findAllSortedByAlphabet()).thenReturn(List.of(house));
+        when(houseRepository.findByName(newHouse.getName())).thenReturn(Optional.empty());
+        when(houseRepository.save(newHouse)).thenReturn(createTestHouse(2L, "Домик в лесу", "800.00"));
+        when(houseRepository.findById(1L)).thenReturn(Optional.of(house));
+
+        // Act
+        houseService.rebuildSuggestIndex();
+        houseService.create(newHouse);
+        List<Suggestion> found = houseService.suggest("дом", null);
+        houseService.delete(1L);
+        List<Suggestion> afterDelete = houseService.suggest("дом", 5);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), found.stream().map(Suggestion::id).toList());
+        assertEquals(List.of(2L), afterDelete.stream().map(Suggestion::id).toList());
+        assertThrows(IllegalArgumentException.class, () -> houseService.suggest("дом", 0));
+    }
+}
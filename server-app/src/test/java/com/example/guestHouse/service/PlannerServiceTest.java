@@ -0,0 +1,69 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.BookedPeriod;
+import com.example.guestHouse.repository.House;
+import com.example.guestHouse.repository.HouseRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlannerServiceTest {
+
+    @Mock
+    private HouseRepository houseRepository;
+
+    @Spy
+    private HouseAvailabilityIndex availabilityIndex = new HouseAvailabilityIndex();
+
+    @InjectMocks
+    private PlannerService plannerService;
+
+    @Test
+    void planner_ShouldReturnHousesAndRunsClippedToWindow() {
+        // Arrange
+        House forest = new House(1L, "Дом в лесу", new BigDecimal("1200.00"));
+        House lake = new House(2L, "Дом у озера", new BigDecimal("1000.00"));
+        when(houseRepository.findAllSortedByAlphabet()).thenReturn(List.of(forest, lake));
+        availabilityIndex.rebuild(List.of(
+                new BookedPeriod(10L, 2L, LocalDate.of(2024, 5, 28), LocalDate.of(2024, 6, 3)),
+                new BookedPeriod(11L, 2L, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 12)),
+                new BookedPeriod(12L, 2L, LocalDate.of(2024, 6, 25), LocalDate.of(2024, 7, 5)),
+                new BookedPeriod(13L, 3L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 5))
+        ));
+
+        // Act
+        Planner planner = plannerService.planner(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30));
+
+        // Assert
+        assertEquals(30, planner.days());
+        assertEquals(List.of(forest, lake), planner.houses());
+        // Дом 3 не входит в справочник и в сетку не попадает
+        assertEquals(List.of(
+                new PlannerRun(2L, 0, 3, 10L),
+                new PlannerRun(2L, 9, 3, 11L),
+                new PlannerRun(2L, 24, 6, 12L)
+        ), planner.runs());
+    }
+
+    @Test
+    void planner_WithInvalidWindow_ShouldThrow() {
+        // Arrange
+        LocalDate from = LocalDate.of(2024, 6, 1);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> plannerService.planner(from, from.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> plannerService.planner(from, from.plusDays(366)));
+        verifyNoInteractions(houseRepository);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.guestHouse.service;
+
+import com.example.guestHouse.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PricingEngineTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private RentalsServicesRepository rentalsServicesRepository;
+
+    @Mock
+    private DailyStatsAggregator dailyStats;
+
+    @InjectMocks
+    private PricingEngine pricingEngine;
+
+    private final House house = new House(1L, "Дом у озера", new BigDecimal("1000.00"));
+    private final Client client = new Client(1L, "Иван Иванов", "79990001122");
+
+    @Test
+    void roomPrice_ShouldChargePerNightWithDiscount() {
+        // Arrange
+        LocalDate start = LocalDate.of(2024, 6, 10);
+
+        // Act & Assert
+        assertEquals(new BigDecimal("3000.00"), PricingEngine.roomPrice(house.getPrice(), start, start.plusDays(3), null));
+        assertEquals(new BigDecimal("2550.00"), PricingEngine.roomPrice(house.getPrice(), start, start.plusDays(3), new BigDecimal("15")));
+        // Заезд и выезд в один день оплачиваются как одна ночь
+        assertEquals(new BigDecimal("1000.00"), PricingEngine.roomPrice(house.getPrice(), start, start, BigDecimal.ZERO));
+        assertEquals(new BigDecimal("0.00"), PricingEngine.roomPrice(house.getPrice(), start, start.plusDays(3), new BigDecimal("100")));
+    }
+
+    @Test
+    void checkDiscount_OutOfRange_ShouldThrow() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> PricingEngine.checkDiscount(new BigDecimal("-1")));
+        assertThrows(IllegalArgumentException.class, () -> PricingEngine.checkDiscount(new BigDecimal("100.01")));
+        assertDoesNotThrow(() -> PricingEngine.checkDiscount(null));
+    }
+
+    @Test
+    void reprice_ShouldReadServiceTotalsOnceAndTrackRoomRevenue() {
+        // Arrange
+        Rental first = new Rental(1L, house, client, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 3), new BigDecimal("999.00"));
+        Rental second = new Rental(2L, house, client, LocalDate.of(2024, 6, 10), LocalDate.of(2024, 6, 11), null);
+        second.setDiscount(new BigDecimal("50"));
+        when(rentalsServicesRepository.sumServicePricesByRentals(Set.of(1L, 2L)))
+                .thenReturn(List.of(new RentalServicesTotal(1L, new BigDecimal("500.00"))));
+
+        // Act
+        DailyStatsAggregator.Changes changes = pricingEngine.reprice(List.of(first, second), new DailyStatsAggregator.Changes());
+
+        // Assert
+        assertEquals(new BigDecimal("2000.00"), first.getRoomPrice());
+        assertEquals(new BigDecimal("2500.00"), first.getSummaryPrice());
+        assertEquals(new BigDecimal("500.00"), second.getSummaryPrice());
+        verify(rentalsServicesRepository, times(1)).sumServicePricesByRentals(any());
+        // Прежняя стоимость первой аренды (999) целиком заменена стоимостью проживания (2000)
+        BigDecimal roomRevenue = changes.deltas().values().stream()
+                .map(DailyStatsAggregator.Changes.Delta::roomRevenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("1501.00").compareTo(roomRevenue));
+    }
+
+    @Test
+    void repriceHouse_ShouldApplyChangesOnce() {
+        // Arrange
+        Rental rental = new Rental(1L, house, client, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 3), null);
+        when(rentalRepository.findAllByHouseId(1L)).thenReturn(List.of(rental));
+
+        // Act
+        pricingEngine.repriceHouse(1L);
+
+        // Assert
+        assertEquals(new BigDecimal("2000.00"), rental.getSummaryPrice());
+        verify(dailyStats, times(1)).apply(any());
+    }
+}
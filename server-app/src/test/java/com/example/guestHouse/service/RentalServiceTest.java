@@ -5,11 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +28,18 @@ class RentalServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private DailyStatsAggregator dailyStats;
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Spy
+    private HouseAvailabilityIndex availabilityIndex = new HouseAvailabilityIndex();
+
+    @Mock
+    private ChangeFeed changeFeed;
+
     @InjectMocks
     private RentalService rentalService;
 
@@ -58,17 +72,18 @@ class RentalServiceTest {
                 LocalDate.of(2023, 7, 5),
                 new BigDecimal("8000.00"));
 
-        List<Rental> expectedRentals = List.of(rental1, rental2);
-        when(rentalRepository.findAllSortedByClients()).thenReturn(expectedRentals);
+        when(rentalRepository.streamAllRowsSortedByClients())
+                .thenReturn(Stream.of(RentalRow.of(rental1), RentalRow.of(rental2)));
 
         // Act
-        List<Rental> actualRentals = rentalService.findAll();
+        List<RentalRow> actualRentals = new ArrayList<>();
+        rentalService.forEachRow(actualRentals::add);
 
         // Assert
         assertEquals(2, actualRentals.size());
-        assertEquals("Иван Иванов", actualRentals.get(0).getClient().getName());
-        assertEquals("Петр Петров", actualRentals.get(1).getClient().getName());
-        verify(rentalRepository, times(1)).findAllSortedByClients();
+        assertEquals("Иван Иванов", actualRentals.get(0).clientName());
+        assertEquals("Апартаменты в горах", actualRentals.get(1).houseName());
+        verify(rentalRepository, times(1)).streamAllRowsSortedByClients();
     }
 
     @Test
@@ -86,8 +101,8 @@ class RentalServiceTest {
                 LocalDate.of(2023, 6, 10),
                 new BigDecimal("13500.00"));
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(clientRepository.findById(client.getId())).thenReturn(Optional.of(client));
+        when(houseRepository.findCachedById(house.getId())).thenReturn(Optional.of(house));
+        when(clientRepository.findCachedById(client.getId())).thenReturn(Optional.of(client));
         when(rentalRepository.save(newRental)).thenReturn(savedRental);
 
         // Act
@@ -98,9 +113,10 @@ class RentalServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(house, result.getHouse());
         assertEquals(client, result.getClient());
-        verify(houseRepository, times(1)).findById(house.getId());
-        verify(clientRepository, times(1)).findById(client.getId());
+        verify(houseRepository, times(1)).findCachedById(house.getId());
+        verify(clientRepository, times(1)).findCachedById(client.getId());
         verify(rentalRepository, times(1)).save(newRental);
+        assertEquals(1, availabilityIndex.findPeriods(house.getId()).size());
     }
 
     @Test
@@ -114,15 +130,15 @@ class RentalServiceTest {
                 LocalDate.now().plusDays(5),
                 new BigDecimal("5000.00"));
 
-        when(houseRepository.findById(nonExistingHouseId)).thenReturn(Optional.empty());
+        when(houseRepository.findCachedById(nonExistingHouseId)).thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalStateException exception = assertThrows(IllegalStateException.class,
                 () -> rentalService.create(newRental));
 
         assertEquals("Дома с id 99 не существует", exception.getMessage());
-        verify(houseRepository, times(1)).findById(nonExistingHouseId);
-        verify(clientRepository, never()).findById(any());
+        verify(houseRepository, times(1)).findCachedById(nonExistingHouseId);
+        verify(clientRepository, never()).findCachedById(any());
         verify(rentalRepository, never()).save(any());
     }
 
@@ -137,19 +153,108 @@ class RentalServiceTest {
                 LocalDate.now().plusDays(5),
                 new BigDecimal("5000.00"));
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(clientRepository.findById(nonExistingClientId)).thenReturn(Optional.empty());
+        when(houseRepository.findCachedById(house.getId())).thenReturn(Optional.of(house));
+        when(clientRepository.findCachedById(nonExistingClientId)).thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalStateException exception = assertThrows(IllegalStateException.class,
                 () -> rentalService.create(newRental));
 
         assertEquals("Клиента с id 99 не существует", exception.getMessage());
-        verify(houseRepository, times(1)).findById(house.getId());
-        verify(clientRepository, times(1)).findById(nonExistingClientId);
+        verify(houseRepository, times(1)).findCachedById(house.getId());
+        verify(clientRepository, times(1)).findCachedById(nonExistingClientId);
         verify(rentalRepository, never()).save(any());
     }
 
+    @Test
+    void create_WithOverlappingPeriod_ShouldThrowException() {
+        // Arrange
+        House house = createHouse(1L, "Дом у озера", new BigDecimal("1500.00"));
+        Client client = createClient(1L, "Иван Иванов", "79990001122");
+        availabilityIndex.put(5L, house.getId(), LocalDate.of(2023, 6, 5), LocalDate.of(2023, 6, 12));
+        Rental newRental = createRental(null, house, client,
+                LocalDate.of(2023, 6, 1),
+                LocalDate.of(2023, 6, 5),
+                new BigDecimal("6000.00"));
+
+        when(houseRepository.findCachedById(house.getId())).thenReturn(Optional.of(house));
+        when(clientRepository.findCachedById(client.getId())).thenReturn(Optional.of(client));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> rentalService.create(newRental));
+
+        assertEquals("Дом уже забронирован на выбранные даты (аренда с id 5)", exception.getMessage());
+        verify(rentalRepository, never()).save(any());
+    }
+
+    @Test
+    void create_WithEndBeforeStart_ShouldThrowException() {
+        // Arrange
+        House house = createHouse(1L, "Дом у озера", new BigDecimal("1500.00"));
+        Client client = createClient(1L, "Иван Иванов", "79990001122");
+        Rental newRental = createRental(null, house, client,
+                LocalDate.of(2023, 6, 10),
+                LocalDate.of(2023, 6, 1),
+                new BigDecimal("6000.00"));
+
+        when(houseRepository.findCachedById(house.getId())).thenReturn(Optional.of(house));
+        when(clientRepository.findCachedById(client.getId())).thenReturn(Optional.of(client));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rentalService.create(newRental));
+        verify(rentalRepository, never()).save(any());
+    }
+
+    @Test
+    void createBatch_ShouldSaveValidRowsAndReportRejected() {
+        // Arrange
+        House house = createHouse(1L, "Дом у озера", new BigDecimal("1500.00"));
+        Client client = createClient(1L, "Иван Иванов", "79990001122");
+        availabilityIndex.put(10L, house.getId(), LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 10));
+
+        List<RentalImport> rows = List.of(
+                new RentalImport(1L, 1L, LocalDate.of(2023, 7, 1), LocalDate.of(2023, 7, 5), null),
+                new RentalImport(2L, 1L, LocalDate.of(2023, 7, 1), LocalDate.of(2023, 7, 5), null),
+                new RentalImport(1L, 1L, LocalDate.of(2023, 6, 5), LocalDate.of(2023, 6, 12), null),
+                new RentalImport(1L, 1L, LocalDate.of(2023, 7, 4), LocalDate.of(2023, 7, 8), null),
+                new RentalImport(1L, 1L, LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 3), null));
+
+        when(houseRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(house));
+        when(clientRepository.findAllById(Set.of(1L))).thenReturn(List.of(client));
+        when(rentalRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Rental> rentals = invocation.getArgument(0);
+            for (int i = 0; i < rentals.size(); i++) {
+                rentals.get(i).setId(100L + i);
+            }
+            return rentals;
+        });
+
+        // Act
+        RentalImportReport report = rentalService.createBatch(rows);
+
+        // Assert
+        assertEquals(2, report.created());
+        assertEquals(3, report.rejected());
+        assertEquals(100L, report.rows().get(0).rentalId());
+        assertEquals("Дома с id 2 не существует", report.rows().get(1).error());
+        assertEquals("Дом уже забронирован на выбранные даты (аренда с id 10)", report.rows().get(2).error());
+        assertEquals("Пересекается со строкой 0 этого же импорта", report.rows().get(3).error());
+        assertEquals(101L, report.rows().get(4).rentalId());
+        verify(houseRepository, never()).findCachedById(any());
+        verify(rentalRepository, times(1)).saveAll(anyList());
+        assertEquals(3, availabilityIndex.findPeriods(house.getId()).size());
+    }
+
+    @Test
+    void createBatch_WithTooManyRows_ShouldThrowException() {
+        List<RentalImport> rows = Collections.nCopies(5001,
+                new RentalImport(1L, 1L, LocalDate.of(2023, 7, 1), LocalDate.of(2023, 7, 5), null));
+
+        assertThrows(IllegalArgumentException.class, () -> rentalService.createBatch(rows));
+        verify(rentalRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void delete_WithExistingId_ShouldDeleteRental() {
         // Arrange
@@ -162,6 +267,7 @@ class RentalServiceTest {
                 new BigDecimal("3000.00"));
 
         when(rentalRepository.findById(rentalId)).thenReturn(Optional.of(rental));
+        availabilityIndex.put(rentalId, 1L, rental.getStartDate(), rental.getEndDate());
 
         // Act
         rentalService.delete(rentalId);
@@ -169,6 +275,8 @@ class RentalServiceTest {
         // Assert
         verify(rentalRepository, times(1)).findById(rentalId);
         verify(rentalRepository, times(1)).deleteById(rentalId);
+        assertTrue(availabilityIndex.findPeriods(1L).isEmpty());
+        verify(changeFeed, times(1)).publishDelete(ChangeFeed.RENTAL, rentalId);
     }
 
     @Test
@@ -189,25 +297,14 @@ class RentalServiceTest {
     @Test
     void getBookedPeriodsByHouse_ShouldReturnCorrectMap() {
         // Arrange
-        House house1 = createHouse(1L, "Дом 1", new BigDecimal("1000.00"));
-        House house2 = createHouse(2L, "Дом 2", new BigDecimal("2000.00"));
-
-        List<Rental> rentals = List.of(
-                createRental(1L, house1, createClient(1L, "Клиент 1", "79990001122"),
-                        LocalDate.of(2023, 6, 1),
-                        LocalDate.of(2023, 6, 10),
-                        new BigDecimal("9000.00")),
-                createRental(2L, house1, createClient(2L, "Клиент 2", "79990002233"),
-                        LocalDate.of(2023, 7, 1),
-                        LocalDate.of(2023, 7, 5),
-                        new BigDecimal("4000.00")),
-                createRental(3L, house2, createClient(3L, "Клиент 3", "79990003344"),
-                        LocalDate.of(2023, 8, 1),
-                        LocalDate.of(2023, 8, 15),
-                        new BigDecimal("28000.00"))
+        List<BookedPeriod> periods = List.of(
+                new BookedPeriod(2L, 1L, LocalDate.of(2023, 7, 1), LocalDate.of(2023, 7, 5)),
+                new BookedPeriod(1L, 1L, LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 10)),
+                new BookedPeriod(3L, 2L, LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 15))
         );
 
-        when(rentalRepository.findAll()).thenReturn(rentals);
+        when(rentalRepository.findAllBookedPeriods()).thenReturn(periods);
+        rentalService.rebuildAvailabilityIndex();
 
         // Act
         Map<Long, List<Map<String, LocalDate>>> result = rentalService.getBookedPeriodsByHouse();
@@ -217,11 +314,38 @@ class RentalServiceTest {
         assertEquals(2, result.get(1L).size()); // 2 периода для дома 1
         assertEquals(1, result.get(2L).size()); // 1 период для дома 2
 
-        // Проверяем первый период первого дома
+        // Периоды отсортированы по дате начала
         assertEquals(LocalDate.of(2023, 6, 1), result.get(1L).get(0).get("startDate"));
         assertEquals(LocalDate.of(2023, 6, 10), result.get(1L).get(0).get("endDate"));
 
-        verify(rentalRepository, times(1)).findAll();
+        verify(rentalRepository, times(1)).findAllBookedPeriods();
+        verify(rentalRepository, never()).findAll();
+    }
+
+    @Test
+    void getBookedPeriodsByHouse_ShouldNotQueryRepositoryAfterRebuild() {
+        // Arrange
+        when(rentalRepository.findAllBookedPeriods()).thenReturn(List.of(
+                new BookedPeriod(1L, 1L, LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 10))));
+        rentalService.rebuildAvailabilityIndex();
+
+        // Act
+        rentalService.getBookedPeriodsByHouse();
+        rentalService.getBookedPeriodsByHouse();
+
+        // Assert
+        verify(rentalRepository, times(1)).findAllBookedPeriods();
+        verifyNoMoreInteractions(rentalRepository);
+    }
+
+    @Test
+    void getBookedIntervals_WithTooWideWindow_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rentalService.getBookedIntervals(1L,
+                LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1), null));
+        assertThrows(IllegalArgumentException.class, () -> rentalService.getBookedIntervals(1L,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null));
+        verifyNoInteractions(rentalRepository);
     }
 
     @Test
@@ -243,7 +367,7 @@ class RentalServiceTest {
         when(rentalRepository.findById(rentalId)).thenReturn(Optional.of(existingRental));
 
         // Act
-        rentalService.update(rentalId, newHouse, newClient, newStartDate, newEndDate);
+        rentalService.update(rentalId, newHouse, newClient, newStartDate, newEndDate, null);
 
         // Assert
         assertEquals(newHouse, existingRental.getHouse());
@@ -251,6 +375,7 @@ class RentalServiceTest {
         assertEquals(newStartDate, existingRental.getStartDate());
         assertEquals(newEndDate, existingRental.getEndDate());
         verify(rentalRepository, times(1)).findById(rentalId);
+        assertEquals(newStartDate, availabilityIndex.findPeriods(newHouse.getId()).get(0).startDate());
     }
 
     @Test
@@ -275,7 +400,7 @@ class RentalServiceTest {
         when(rentalRepository.findById(rentalId)).thenReturn(Optional.of(existingRental));
 
         // Act - обновляем только клиента и дату окончания
-        rentalService.update(rentalId, null, newClient, null, newEndDate);
+        rentalService.update(rentalId, null, newClient, null, newEndDate, null);
 
         // Assert
         assertEquals(originalHouse, existingRental.getHouse()); // Не изменилось
@@ -285,6 +410,28 @@ class RentalServiceTest {
         verify(rentalRepository, times(1)).findById(rentalId);
     }
 
+    @Test
+    void update_WithOverlappingDates_ShouldThrowException() {
+        // Arrange
+        Long rentalId = 1L;
+        House house = createHouse(1L, "Дом", new BigDecimal("1000.00"));
+        Rental existingRental = createRental(rentalId, house,
+                createClient(1L, "Клиент", "79990001122"),
+                LocalDate.of(2023, 6, 1),
+                LocalDate.of(2023, 6, 10),
+                new BigDecimal("9000.00"));
+        availabilityIndex.put(rentalId, house.getId(), existingRental.getStartDate(), existingRental.getEndDate());
+        availabilityIndex.put(2L, house.getId(), LocalDate.of(2023, 6, 15), LocalDate.of(2023, 6, 20));
+
+        when(rentalRepository.findById(rentalId)).thenReturn(Optional.of(existingRental));
+
+        // Act & Assert - сдвиг собственной аренды допустим, заезд на чужие даты - нет
+        assertDoesNotThrow(() -> rentalService.update(rentalId, null, null, LocalDate.of(2023, 6, 3), null, null));
+        assertThrows(IllegalStateException.class,
+                () -> rentalService.update(rentalId, null, null, null, LocalDate.of(2023, 6, 16), null));
+        assertEquals(LocalDate.of(2023, 6, 10), existingRental.getEndDate());
+    }
+
     @Test
     void update_WithNonExistingId_ShouldThrowException() {
         // Arrange
@@ -293,7 +440,7 @@ class RentalServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> rentalService.update(nonExistingRentalId, null, null, null, null));
+                () -> rentalService.update(nonExistingRentalId, null, null, null, null, null));
 
         assertEquals("Аренда с id 99 не существует", exception.getMessage());
         verify(rentalRepository, times(1)).findById(nonExistingRentalId);
@@ -10,8 +10,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,6 +30,15 @@ class RentalsServicesServiceTest {
     @Mock
     private RentalRepository rentalRepository;
 
+    @Mock
+    private DailyStatsAggregator dailyStats;
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
     @InjectMocks
     private RentalsServicesService rentalsServicesService;
 
@@ -61,17 +72,18 @@ class RentalsServicesServiceTest {
         RentalsServices rs1 = createRentalsServices(1L, service, rental, LocalDateTime.now());
         RentalsServices rs2 = createRentalsServices(2L, service, rental, LocalDateTime.now().plusHours(2));
 
-        List<RentalsServices> expectedList = List.of(rs1, rs2);
-        when(rentalsServicesRepository.findAll()).thenReturn(expectedList);
+        when(rentalsServicesRepository.streamAllRows())
+                .thenReturn(Stream.of(RentalsServicesRow.of(rs1), RentalsServicesRow.of(rs2)));
 
         // Act
-        List<RentalsServices> result = rentalsServicesService.findAll();
+        List<RentalsServicesRow> result = new ArrayList<>();
+        rentalsServicesService.forEachRow(result::add);
 
         // Assert
         assertEquals(2, result.size());
-        assertEquals(rs1, result.get(0));
-        assertEquals(rs2, result.get(1));
-        verify(rentalsServicesRepository, times(1)).findAll();
+        assertEquals("Клиент", result.get(0).clientName());
+        assertEquals("Уборка", result.get(1).serviceName());
+        verify(rentalsServicesRepository, times(1)).streamAllRows();
     }
 
     @Test
@@ -89,7 +101,7 @@ class RentalsServicesServiceTest {
         RentalsServices newRentalsServices = createRentalsServices(null, service, rental, exTime);
         RentalsServices savedRentalsServices = createRentalsServices(1L, service, rental, exTime);
 
-        when(serviceRepository.findById(service.getId())).thenReturn(Optional.of(service));
+        when(serviceRepository.findCachedById(service.getId())).thenReturn(Optional.of(service));
         when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
         when(rentalsServicesRepository.save(newRentalsServices)).thenReturn(savedRentalsServices);
 
@@ -102,7 +114,7 @@ class RentalsServicesServiceTest {
         assertEquals(service, result.getService());
         assertEquals(rental, result.getRental());
         assertEquals(exTime, result.getExTime());
-        verify(serviceRepository, times(1)).findById(service.getId());
+        verify(serviceRepository, times(1)).findCachedById(service.getId());
         verify(rentalRepository, times(1)).findById(rental.getId());
         verify(rentalsServicesRepository, times(1)).save(newRentalsServices);
     }
@@ -121,14 +133,14 @@ class RentalsServicesServiceTest {
 
         RentalsServices newRentalsServices = createRentalsServices(null, service, rental, LocalDateTime.now());
 
-        when(serviceRepository.findById(nonExistingServiceId)).thenReturn(Optional.empty());
+        when(serviceRepository.findCachedById(nonExistingServiceId)).thenReturn(Optional.empty());
 
         // Act & Assert
         IllegalStateException exception = assertThrows(IllegalStateException.class,
                 () -> rentalsServicesService.create(newRentalsServices));
 
         assertEquals("Услуги с id 99 не существует", exception.getMessage());
-        verify(serviceRepository, times(1)).findById(nonExistingServiceId);
+        verify(serviceRepository, times(1)).findCachedById(nonExistingServiceId);
         verify(rentalRepository, never()).findById(any());
         verify(rentalsServicesRepository, never()).save(any());
     }
@@ -147,7 +159,7 @@ class RentalsServicesServiceTest {
 
         RentalsServices newRentalsServices = createRentalsServices(null, service, rental, LocalDateTime.now());
 
-        when(serviceRepository.findById(service.getId())).thenReturn(Optional.of(service));
+        when(serviceRepository.findCachedById(service.getId())).thenReturn(Optional.of(service));
         when(rentalRepository.findById(nonExistingRentalId)).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -155,7 +167,7 @@ class RentalsServicesServiceTest {
                 () -> rentalsServicesService.create(newRentalsServices));
 
         assertEquals("Аренды с id 99 не существует", exception.getMessage());
-        verify(serviceRepository, times(1)).findById(service.getId());
+        verify(serviceRepository, times(1)).findCachedById(service.getId());
         verify(rentalRepository, times(1)).findById(nonExistingRentalId);
         verify(rentalsServicesRepository, never()).save(any());
     }
@@ -225,7 +237,7 @@ class RentalsServicesServiceTest {
         when(rentalsServicesRepository.findById(rentalsServicesId)).thenReturn(Optional.of(existing));
 
         // Act
-        rentalsServicesService.update(rentalsServicesId, newService, newRental, newExTime);
+        rentalsServicesService.update(rentalsServicesId, newService, newRental, newExTime, null);
 
         // Assert
         assertEquals(newService, existing.getService());
@@ -257,7 +269,7 @@ class RentalsServicesServiceTest {
         when(rentalsServicesRepository.findById(rentalsServicesId)).thenReturn(Optional.of(existing));
 
         // Act - обновляем только время выполнения
-        rentalsServicesService.update(rentalsServicesId, null, null, newExTime);
+        rentalsServicesService.update(rentalsServicesId, null, null, newExTime, null);
 
         // Assert
         assertEquals(originalService, existing.getService()); // Не изменилось
@@ -274,7 +286,7 @@ class RentalsServicesServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> rentalsServicesService.update(nonExistingId, null, null, null));
+                () -> rentalsServicesService.update(nonExistingId, null, null, null, null));
 
         assertEquals("Заказанной услуги с id 99 не существует", exception.getMessage());
         verify(rentalsServicesRepository, times(1)).findById(nonExistingId);
@@ -0,0 +1,70 @@
+package com.example.guestHouse.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScrollCursorTest {
+
+    private static final Map<String, Class<?>> SORT_KEYS = Map.of("startDate", LocalDate.class);
+
+    @Test
+    void of_WithoutToken_ShouldStartFromFirstPage() {
+        ScrollCursor cursor = ScrollCursor.of(null, "startDate", Sort.Direction.DESC, SORT_KEYS);
+
+        assertTrue(cursor.position().isInitial());
+        assertEquals(Sort.by(Sort.Direction.DESC, "startDate", "id"), cursor.sort());
+    }
+
+    @Test
+    void token_ShouldRestorePosition() {
+        // Arrange
+        ScrollCursor first = ScrollCursor.of(null, "startDate", Sort.Direction.DESC, SORT_KEYS);
+
+        // Act
+        String token = first.token(Map.of("startDate", LocalDate.of(2024, 6, 9), "id", 6L));
+        ScrollCursor next = ScrollCursor.of(token, "ignored", null, SORT_KEYS);
+
+        // Assert
+        KeysetScrollPosition position = (KeysetScrollPosition) next.position();
+        assertEquals(LocalDate.of(2024, 6, 9), position.getKeys().get("startDate"));
+        assertEquals(6L, position.getKeys().get("id"));
+        assertEquals(Sort.by(Sort.Direction.DESC, "startDate", "id"), next.sort());
+    }
+
+    @Test
+    void token_WithNullSortValue_ShouldContinueById() {
+        // Arrange
+        ScrollCursor first = ScrollCursor.of(null, "startDate", Sort.Direction.ASC, SORT_KEYS);
+        Map<String, Object> lastKeys = new HashMap<>();
+        lastKeys.put("startDate", null);
+        lastKeys.put("id", 7L);
+
+        // Act
+        ScrollCursor next = ScrollCursor.of(first.token(lastKeys), "ignored", null, SORT_KEYS);
+
+        // Assert
+        assertEquals(Map.of("id", 7L), ((KeysetScrollPosition) next.position()).getKeys());
+    }
+
+    @Test
+    void of_WithBrokenTokenOrUnknownSort_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ScrollCursor.of("not-a-token", "startDate", null, SORT_KEYS));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScrollCursor.of(null, "summaryPrice", null, SORT_KEYS));
+    }
+
+    @Test
+    void pageSize_ShouldApplyDefaultAndLimits() {
+        assertEquals(ScrollCursor.DEFAULT_PAGE_SIZE, ScrollCursor.pageSize(null));
+        assertThrows(IllegalArgumentException.class, () -> ScrollCursor.pageSize(0));
+        assertThrows(IllegalArgumentException.class, () -> ScrollCursor.pageSize(ScrollCursor.MAX_PAGE_SIZE + 1));
+    }
+}
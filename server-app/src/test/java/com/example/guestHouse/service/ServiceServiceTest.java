@@ -21,6 +21,15 @@ class ServiceServiceTest {
     @Mock
     private ServiceRepository serviceRepository;
 
+    @Mock
+    private DailyStatsAggregator dailyStats;
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
     @InjectMocks
     private ServiceService serviceService;
 
@@ -124,7 +133,7 @@ class ServiceServiceTest {
         when(serviceRepository.findByName(newName)).thenReturn(Optional.empty());
 
         // Act
-        serviceService.update(serviceId, newName, newPrice);
+        serviceService.update(serviceId, newName, newPrice, null);
 
         // Assert
         assertEquals(newName, existingService.getName());
@@ -146,7 +155,7 @@ class ServiceServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> serviceService.update(serviceId, newName, null));
+                () -> serviceService.update(serviceId, newName, null, null));
 
         assertEquals("Услуга с таким именем уже существует", exception.getMessage());
         verify(serviceRepository, times(1)).findById(serviceId);
@@ -161,7 +170,7 @@ class ServiceServiceTest {
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-                () -> serviceService.update(nonExistingId, "Новое имя", null));
+                () -> serviceService.update(nonExistingId, "Новое имя", null, null));
 
         assertEquals("Услуги с id 99 не существует", exception.getMessage());
         verify(serviceRepository, times(1)).findById(nonExistingId);
@@ -177,7 +186,7 @@ class ServiceServiceTest {
         when(serviceRepository.findById(serviceId)).thenReturn(Optional.of(existingService));
 
         // Act
-        serviceService.update(serviceId, null, newPrice);
+        serviceService.update(serviceId, null, newPrice, null);
 
         // Assert
         assertEquals("Хорошая услуга", existingService.getName()); // Имя не изменилось
@@ -196,7 +205,7 @@ class ServiceServiceTest {
         when(serviceRepository.findByName(newName)).thenReturn(Optional.empty());
 
         // Act
-        serviceService.update(serviceId, newName, null);
+        serviceService.update(serviceId, newName, null, null);
 
         // Assert
         assertEquals(newName, existingService.getName()); // Имя изменилось
@@ -213,7 +222,7 @@ class ServiceServiceTest {
         when(serviceRepository.findById(serviceId)).thenReturn(Optional.of(existingService));
 
         // Act
-        serviceService.update(serviceId, existingService.getName(), existingService.getPrice());
+        serviceService.update(serviceId, existingService.getName(), existingService.getPrice(), null);
 
         // Assert
         assertEquals("Услуга", existingService.getName()); // Не изменилось
@@ -0,0 +1,109 @@
+package com.example.guestHouse.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestIndexTest {
+
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex();
+        index.rebuild(List.of(
+                new Suggestion(1L, "Иван Иванов", "+7 (999) 000-11-22"),
+                new Suggestion(2L, "Алексей Петров", "79990003344"),
+                new Suggestion(3L, "Пётр Сидоров", "79161234567")
+        ));
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+
+    @Test
+    void search_ShouldMatchBeginningOfAnyWordIgnoringCase() {
+        assertEquals(List.of(1L), ids(index.search("ива", 10)));
+        assertEquals(List.of(2L, 3L), ids(index.search("пет", 10)));
+        // ё и е не различаются
+        assertEquals(List.of(3L), ids(index.search("петр сид", 10)));
+        assertEquals(List.of(), ids(index.search("ванов", 10)));
+    }
+
+    @Test
+    void search_WithEveryWord_ShouldRequireAllOfThem() {
+        assertEquals(List.of(2L), ids(index.search("Петров ал", 10)));
+        assertEquals(List.of(), ids(index.search("Петров иван", 10)));
+    }
+
+    @Test
+    void search_WithDigits_ShouldMatchAnyFragmentOfPhone() {
+        assertEquals(List.of(3L), ids(index.search("+7 916", 10)));
+        assertEquals(List.of(3L), ids(index.search("4567", 10)));
+        assertEquals(List.of(2L, 1L), ids(index.search("(999) 000", 10)));
+    }
+
+    @Test
+    void search_WithBlankQuery_ShouldReturnFirstByName() {
+        assertEquals(List.of(2L, 1L), ids(index.search(" ", 2)));
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search(null, 10)));
+    }
+
+    @Test
+    void search_ShouldStopAtLimit() {
+        assertEquals(2, index.search("7", 2).size());
+    }
+
+    @Test
+    void putAndRemove_ShouldReplaceOldKeys() {
+        index.put(new Suggestion(1L, "Иван Смирнов", "79990001122"));
+        index.remove(2L);
+
+        assertEquals(List.of(1L), ids(index.search("смир", 10)));
+        assertEquals(List.of(), ids(index.search("иванов", 10)));
+        assertEquals(List.of(), ids(index.search("алексей", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void limit_ShouldBeValidated() {
+        assertEquals(SuggestIndex.DEFAULT_LIMIT, SuggestIndex.limit(null));
+        assertThrows(IllegalArgumentException.class, () -> SuggestIndex.limit(0));
+        assertThrows(IllegalArgumentException.class, () -> SuggestIndex.limit(SuggestIndex.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void search_ShouldMatchLinearScan() {
+        Random random = new Random(42);
+        String[] words = {"анна", "антон", "андрей", "борис", "вера", "дом", "дача", "домик", "озеро", "лес"};
+        List<Suggestion> all = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            all.add(new Suggestion(id, name, "79" + (100000000 + random.nextInt(900000000))));
+        }
+        index.rebuild(all);
+
+        for (int i = 0; i < 200; i++) {
+            String word = words[random.nextInt(words.length)];
+            String query = word.substring(0, 1 + random.nextInt(word.length()));
+            List<Long> expected = all.stream()
+                    .filter(suggestion -> List.of(suggestion.name().split(" ")).stream().anyMatch(w -> w.startsWith(query)))
+                    .map(Suggestion::id)
+                    .sorted()
+                    .toList();
+            List<Long> actual = ids(index.search(query, SuggestIndex.MAX_LIMIT)).stream().sorted().toList();
+            if (expected.size() <= SuggestIndex.MAX_LIMIT) {
+                assertEquals(expected, actual, query);
+            } else {
+                assertEquals(SuggestIndex.MAX_LIMIT, actual.size(), query);
+                assertTrue(expected.containsAll(actual), query);
+            }
+        }
+    }
+}